@@ -1,6 +1,7 @@
 package com.spring.userservice.config;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -12,7 +13,12 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+
+import com.spring.userservice.entity.User;
 import com.spring.userservice.repository.UserRepository;
+import com.spring.userservice.resilience.DatabaseBulkhead;
+import com.spring.userservice.resilience.DatabaseBulkheads;
 
 /**
  * ApplicationConfig class provides the configuration for user authentication
@@ -30,6 +36,7 @@ public class ApplicationConfig {
     private static final String USER_NOT_FOUND_MESSAGE = "User not found";
 
     private final UserRepository userRepository;
+    private final DatabaseBulkheads databaseBulkheads;
 
     /**
      * Bean for password encoding using BCrypt hashing algorithm.
@@ -49,14 +56,31 @@ public class ApplicationConfig {
      * <p>
      * This method returns a lambda that fetches user details from the
      * database using the email address. If the user is not found, 
-     * a UsernameNotFoundException is thrown.
+     * a UsernameNotFoundException is thrown. This is the token filter's
+     * lookup, so it runs in the filter-lookup bulkhead. When
+     * 'auth.user-cache.ttl' is set, found users are kept in a
+     * {@link UserLookupCache} for that long, so a client polling with the same
+     * token does not reach the database every time. The cache is off by
+     * default because it delays role changes on every endpoint.
      *
+     * @param cacheTtl how long a loaded user may be reused; 0 disables caching
+     * @param cacheSize the number of cache slots
      * @return a UserDetailsService implementation.
      */
     @Bean
-    UserDetailsService userDetailsService() {
-        return username -> userRepository.findByEmail(username)
-            .orElseThrow(() -> new UsernameNotFoundException(USER_NOT_FOUND_MESSAGE));
+    UserDetailsService userDetailsService(
+            @Value("${auth.user-cache.ttl:PT0S}") Duration cacheTtl,
+            @Value("${auth.user-cache.size:4096}") int cacheSize) {
+        UserLookupCache userLookupCache = new UserLookupCache(cacheSize, cacheTtl.toNanos());
+        return username -> {
+            User cached = userLookupCache.get(username);
+            if (cached != null) {
+                return cached;
+            }
+            User user = loadUser(databaseBulkheads.getFilterLookup(), username);
+            userLookupCache.put(username, user);
+            return user;
+        };
     }
 
     /**
@@ -64,18 +88,24 @@ public class ApplicationConfig {
      * <p>
      * This method sets up a DaoAuthenticationProvider with a user details 
      * service and password encoder. This provider is used to authenticate
-     * users based on the information stored in the database.
+     * users based on the information stored in the database. Its user lookup
+     * runs in the login bulkhead; the password check happens outside of it.
      *
      * @return an AuthenticationProvider instance.
      */
     @Bean
     AuthenticationProvider authenticationProvider() {
     	DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
-        authProvider.setUserDetailsService(userDetailsService());
+        authProvider.setUserDetailsService(username -> loadUser(databaseBulkheads.getLogin(), username));
         authProvider.setPasswordEncoder(passwordEncoder());
         return authProvider;
     }
 
+    private User loadUser(DatabaseBulkhead bulkhead, String username) {
+        return bulkhead.call(username, () -> userRepository.findByEmail(username))
+            .orElseThrow(() -> new UsernameNotFoundException(USER_NOT_FOUND_MESSAGE));
+    }
+
     /**
      * Bean to configure the AuthenticationManager.
      * <p>
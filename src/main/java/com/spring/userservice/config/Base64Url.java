@@ -0,0 +1,118 @@
+package com.spring.userservice.config;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Unpadded base64url encoding over caller-supplied buffers, as used by compact tokens.
+ */
+final class Base64Url {
+
+    private static final byte[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    private Base64Url() {
+    }
+
+    static boolean isAlphabet(char c) {
+        return c < 128 && DECODE[c] >= 0;
+    }
+
+    static int encodedLength(int length) {
+        return (length / 3) * 4 + (length % 3 == 0 ? 0 : length % 3 + 1);
+    }
+
+    /**
+     * Encodes a byte range.
+     *
+     * @return the number of bytes written
+     */
+    static int encode(byte[] src, int from, int length, byte[] dst, int offset) {
+        int o = offset;
+        int i = from;
+        int end = from + length;
+        for (; end - i >= 3; i += 3) {
+            int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF);
+            dst[o++] = ALPHABET[bits >>> 18];
+            dst[o++] = ALPHABET[(bits >>> 12) & 0x3F];
+            dst[o++] = ALPHABET[(bits >>> 6) & 0x3F];
+            dst[o++] = ALPHABET[bits & 0x3F];
+        }
+        int remaining = end - i;
+        if (remaining > 0) {
+            int bits = (src[i] & 0xFF) << 16 | (remaining == 2 ? (src[i + 1] & 0xFF) << 8 : 0);
+            dst[o++] = ALPHABET[bits >>> 18];
+            dst[o++] = ALPHABET[(bits >>> 12) & 0x3F];
+            if (remaining == 2) {
+                dst[o++] = ALPHABET[(bits >>> 6) & 0x3F];
+            }
+        }
+        return o - offset;
+    }
+
+    /**
+     * Decodes a range of ASCII bytes.
+     *
+     * @return the number of bytes written, or -1 if the input is not base64url
+     */
+    static int decode(byte[] src, int from, int to, byte[] dst, int offset) {
+        if ((to - from) % 4 == 1) {
+            return -1;
+        }
+        int o = offset;
+        int bits = 0;
+        int pending = 0;
+        for (int i = from; i < to; i++) {
+            int b = src[i];
+            int value = b >= 0 ? DECODE[b] : -1;
+            if (value < 0) {
+                return -1;
+            }
+            bits = (bits << 6) | value;
+            pending += 6;
+            if (pending >= 8) {
+                pending -= 8;
+                dst[o++] = (byte) (bits >>> pending);
+                bits &= (1 << pending) - 1;
+            }
+        }
+        return o - offset;
+    }
+
+    /**
+     * Decodes a range of characters.
+     *
+     * @return the number of bytes written, or -1 if the input is not base64url
+     */
+    static int decode(String src, int from, int to, byte[] dst, int offset) {
+        if ((to - from) % 4 == 1) {
+            return -1;
+        }
+        int o = offset;
+        int bits = 0;
+        int pending = 0;
+        for (int i = from; i < to; i++) {
+            char c = src.charAt(i);
+            int value = c < 128 ? DECODE[c] : -1;
+            if (value < 0) {
+                return -1;
+            }
+            bits = (bits << 6) | value;
+            pending += 6;
+            if (pending >= 8) {
+                pending -= 8;
+                dst[o++] = (byte) (bits >>> pending);
+                bits &= (1 << pending) - 1;
+            }
+        }
+        return o - offset;
+    }
+}
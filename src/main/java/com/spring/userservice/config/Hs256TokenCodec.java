@@ -0,0 +1,371 @@
+package com.spring.userservice.config;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+/**
+ * Purpose-built TokenCodec for the fixed HS256 token shape issued by this service.
+ * <p>
+ * Produces the same header and claim layout as jjwt, so tokens are accepted
+ * by either codec. Each thread reuses its own initialized Mac and scratch
+ * buffers, the encoded header is precomputed, claims are written and read
+ * with a streaming encoder and {@link TokenJsonReader}, and signatures are
+ * compared in constant time. The only allocations on the hot path are the
+ * resulting token or claim strings and the 32-byte digest the JDK's HMAC
+ * allocates per signature; malformed tokens are rejected without allocating.
+ * TokenCodecCompatibilityTest cross-checks it against jjwt and
+ * TokenCodecBenchmark measures both.
+ */
+class Hs256TokenCodec implements TokenCodec {
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int SIGNATURE_LENGTH = 32;
+    private static final int ENCODED_SIGNATURE_LENGTH = Base64Url.encodedLength(SIGNATURE_LENGTH);
+
+    private static final byte[] HEADER_JSON = "{\"alg\":\"HS256\"}".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ENCODED_HEADER = new byte[Base64Url.encodedLength(HEADER_JSON.length)];
+
+    private static final byte[] ALG = ascii("alg");
+    private static final byte[] ZIP = ascii("zip");
+    private static final byte[] CRIT = ascii("crit");
+    private static final byte[] SUB = ascii("sub");
+    private static final byte[] AUTHORITIES = ascii("authorities");
+    private static final byte[] IAT = ascii("iat");
+    private static final byte[] EXP = ascii("exp");
+    private static final byte[] NBF = ascii("nbf");
+
+    private static final byte[] HEX = ascii("0123456789ABCDEF");
+
+    static {
+        Base64Url.encode(HEADER_JSON, 0, HEADER_JSON.length, ENCODED_HEADER, 0);
+    }
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Scratch> scratch;
+
+    Hs256TokenCodec(byte[] keyBytes) {
+        this.key = new SecretKeySpec(keyBytes, MAC_ALGORITHM);
+        // Fail at startup rather than on the first request if the key is unusable
+        newMac();
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(newMac()));
+    }
+
+    @Override
+    public String encode(TokenClaims claims) {
+        Scratch s = scratch.get();
+        s.jsonLength = 0;
+        s.put('{');
+        boolean first = true;
+        // jjwt drops a subject without text, so must this codec to produce the same claims
+        if (hasText(claims.subject())) {
+            s.putKey(SUB, first);
+            s.putString(claims.subject());
+            first = false;
+        }
+        if (claims.authorities() != null) {
+            s.putKey(AUTHORITIES, first);
+            s.putString(claims.authorities());
+            first = false;
+        }
+        s.putKey(IAT, first);
+        s.putLong(claims.issuedAt());
+        s.putKey(EXP, false);
+        s.putLong(claims.expiration());
+        s.put('}');
+
+        int payloadEnd = ENCODED_HEADER.length + 1 + Base64Url.encodedLength(s.jsonLength);
+        int tokenLength = payloadEnd + 1 + ENCODED_SIGNATURE_LENGTH;
+        byte[] out = s.token(tokenLength);
+        System.arraycopy(ENCODED_HEADER, 0, out, 0, ENCODED_HEADER.length);
+        out[ENCODED_HEADER.length] = '.';
+        Base64Url.encode(s.json, 0, s.jsonLength, out, ENCODED_HEADER.length + 1);
+        sign(s, out, payloadEnd);
+        out[payloadEnd] = '.';
+        Base64Url.encode(s.signature, 0, SIGNATURE_LENGTH, out, payloadEnd + 1);
+        return new String(out, 0, tokenLength, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public TokenVerification verify(String token) {
+        int length = token.length();
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (length > TokenPrecheck.MAX_TOKEN_LENGTH || firstDot <= 0 || secondDot < 0
+                || length - secondDot - 1 != ENCODED_SIGNATURE_LENGTH) {
+            return TokenVerification.rejected(TokenRejection.MALFORMED);
+        }
+
+        Scratch s = scratch.get();
+        byte[] in = s.token(length);
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c > 0x7F) {
+                return TokenVerification.rejected(TokenRejection.MALFORMED);
+            }
+            in[i] = (byte) c;
+        }
+
+        try {
+            if (!isExpectedHeader(in, firstDot) && !isAcceptedHeader(s, in, firstDot)) {
+                return TokenVerification.rejected(TokenRejection.MALFORMED);
+            }
+
+            if (Base64Url.decode(in, secondDot + 1, length, s.received, 0) != SIGNATURE_LENGTH) {
+                return TokenVerification.rejected(TokenRejection.MALFORMED);
+            }
+            sign(s, in, secondDot);
+            if (!constantTimeEquals(s.signature, s.received)) {
+                return TokenVerification.rejected(TokenRejection.INVALID_SIGNATURE);
+            }
+
+            int payloadLength = Base64Url.decode(in, firstDot + 1, secondDot, s.json(secondDot - firstDot), 0);
+            if (payloadLength < 0) {
+                return TokenVerification.rejected(TokenRejection.MALFORMED);
+            }
+            return readClaims(s, payloadLength, System.currentTimeMillis());
+        } catch (TokenJsonReader.MalformedJsonException e) {
+            return TokenVerification.rejected(TokenRejection.MALFORMED);
+        }
+    }
+
+    private TokenVerification readClaims(Scratch s, int payloadLength, long nowMillis) {
+        TokenJsonReader reader = s.reader;
+        reader.reset(s.json, 0, payloadLength);
+        reader.beginObject();
+        String subject = null;
+        String authorities = null;
+        long issuedAt = 0L;
+        long expiration = Long.MIN_VALUE;
+        long notBefore = Long.MIN_VALUE;
+        while (reader.nextField()) {
+            if (reader.keyEquals(SUB)) {
+                subject = reader.readString();
+            } else if (reader.keyEquals(AUTHORITIES)) {
+                authorities = reader.readString();
+            } else if (reader.keyEquals(IAT)) {
+                issuedAt = reader.readLong();
+            } else if (reader.keyEquals(EXP)) {
+                expiration = reader.readLong();
+            } else if (reader.keyEquals(NBF)) {
+                notBefore = reader.readLong();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endDocument();
+
+        // Same semantics as jjwt without clock skew: expired once now is past exp
+        if (expiration != Long.MIN_VALUE && nowMillis > expiration * 1000L) {
+            return TokenVerification.rejected(TokenRejection.EXPIRED);
+        }
+        if (notBefore != Long.MIN_VALUE && nowMillis < notBefore * 1000L) {
+            return TokenVerification.rejected(TokenRejection.NOT_YET_VALID);
+        }
+        return TokenVerification.valid(
+                new TokenClaims(subject, authorities, issuedAt, expiration == Long.MIN_VALUE ? 0L : expiration));
+    }
+
+    /**
+     * Accepts any other header as long as it selects HS256 without compression or critical extensions.
+     */
+    private static boolean isAcceptedHeader(Scratch s, byte[] in, int headerEnd) {
+        byte[] json = s.json(headerEnd);
+        int headerLength = Base64Url.decode(in, 0, headerEnd, json, 0);
+        if (headerLength < 0) {
+            return false;
+        }
+        TokenJsonReader reader = s.reader;
+        reader.reset(json, 0, headerLength);
+        reader.beginObject();
+        boolean hs256 = false;
+        while (reader.nextField()) {
+            if (reader.keyEquals(ALG)) {
+                hs256 = "HS256".equals(reader.readString());
+            } else if (reader.keyEquals(ZIP) || reader.keyEquals(CRIT)) {
+                return false;
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endDocument();
+        return hs256;
+    }
+
+    private static boolean isExpectedHeader(byte[] in, int headerEnd) {
+        return headerEnd == ENCODED_HEADER.length && Arrays.equals(in, 0, headerEnd, ENCODED_HEADER, 0, headerEnd);
+    }
+
+    private static void sign(Scratch s, byte[] input, int length) {
+        try {
+            s.mac.update(input, 0, length);
+            s.mac.doFinal(s.signature, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean constantTimeEquals(byte[] expected, byte[] actual) {
+        int diff = 0;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            diff |= expected[i] ^ actual[i];
+        }
+        return diff == 0;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize " + MAC_ALGORITHM, e);
+        }
+    }
+
+    private static boolean hasText(String value) {
+        if (value == null) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isWhitespace(value.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Per-thread Mac and buffers.
+     */
+    private static final class Scratch {
+
+        private final Mac mac;
+        private final TokenJsonReader reader = new TokenJsonReader();
+        private final byte[] signature = new byte[SIGNATURE_LENGTH];
+        private final byte[] received = new byte[SIGNATURE_LENGTH];
+        private final byte[] digits = new byte[20];
+        private byte[] json = new byte[512];
+        private byte[] token = new byte[1024];
+        private int jsonLength;
+
+        Scratch(Mac mac) {
+            this.mac = mac;
+        }
+
+        byte[] token(int length) {
+            if (token.length < length) {
+                token = new byte[Math.max(length, token.length * 2)];
+            }
+            return token;
+        }
+
+        byte[] json(int length) {
+            if (json.length < length) {
+                json = new byte[Math.max(length, json.length * 2)];
+            }
+            return json;
+        }
+
+        void put(int b) {
+            if (jsonLength == json.length) {
+                json = Arrays.copyOf(json, json.length * 2);
+            }
+            json[jsonLength++] = (byte) b;
+        }
+
+        void putKey(byte[] key, boolean first) {
+            if (!first) {
+                put(',');
+            }
+            put('"');
+            for (byte b : key) {
+                put(b);
+            }
+            put('"');
+            put(':');
+        }
+
+        void putLong(long value) {
+            if (value < 0) {
+                put('-');
+            }
+            int count = 0;
+            long remaining = value;
+            do {
+                digits[count++] = (byte) ('0' + Math.abs(remaining % 10));
+                remaining /= 10;
+            } while (remaining != 0);
+            while (count > 0) {
+                put(digits[--count]);
+            }
+        }
+
+        /**
+         * Writes a JSON string as UTF-8, escaping the same characters as Jackson.
+         */
+        void putString(String value) {
+            put('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    put('\\');
+                    put(c);
+                } else if (c < 0x20) {
+                    putControl(c);
+                } else if (c < 0x80) {
+                    put(c);
+                } else if (c < 0x800) {
+                    put(0xC0 | (c >> 6));
+                    put(0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    // Jackson escapes characters outside the BMP as a surrogate pair
+                    putUnicodeEscape(c);
+                    putUnicodeEscape(value.charAt(++i));
+                } else if (Character.isSurrogate(c)) {
+                    put('?');
+                } else {
+                    put(0xE0 | (c >> 12));
+                    put(0x80 | ((c >> 6) & 0x3F));
+                    put(0x80 | (c & 0x3F));
+                }
+            }
+            put('"');
+        }
+
+        private void putControl(char c) {
+            put('\\');
+            switch (c) {
+                case '\b' -> put('b');
+                case '\t' -> put('t');
+                case '\n' -> put('n');
+                case '\f' -> put('f');
+                case '\r' -> put('r');
+                default -> {
+                    put('u');
+                    put('0');
+                    put('0');
+                    put(HEX[c >> 4]);
+                    put(HEX[c & 0xF]);
+                }
+            }
+        }
+
+        private void putUnicodeEscape(char c) {
+            put('\\');
+            put('u');
+            put(HEX[c >> 12]);
+            put(HEX[(c >> 8) & 0xF]);
+            put(HEX[(c >> 4) & 0xF]);
+            put(HEX[c & 0xF]);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.spring.userservice.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+
+import java.security.Key;
+import java.util.Date;
+
+/**
+ * TokenCodec backed by the jjwt library.
+ * <p>
+ * The signing key and the parser are built once and shared, both are
+ * immutable and thread-safe. jjwt reports bad tokens with exceptions, which
+ * are translated into rejection results here.
+ */
+class JjwtTokenCodec implements TokenCodec {
+
+    private static final String AUTHORITIES_CLAIM = "authorities";
+
+    private final Key signingKey;
+    private final JwtParser parser;
+
+    JjwtTokenCodec(byte[] keyBytes) {
+        this.signingKey = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
+    @Override
+    public String encode(TokenClaims claims) {
+        return Jwts.builder()
+                .setSubject(claims.subject())
+                .claim(AUTHORITIES_CLAIM, claims.authorities())
+                .setIssuedAt(new Date(claims.issuedAt() * 1000L))
+                .setExpiration(new Date(claims.expiration() * 1000L))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Override
+    public TokenVerification verify(String token) {
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            return TokenVerification.valid(new TokenClaims(
+                    claims.getSubject(),
+                    claims.get(AUTHORITIES_CLAIM, String.class),
+                    toSeconds(claims.getIssuedAt()),
+                    toSeconds(claims.getExpiration())));
+        } catch (ExpiredJwtException e) {
+            return TokenVerification.rejected(TokenRejection.EXPIRED);
+        } catch (PrematureJwtException e) {
+            return TokenVerification.rejected(TokenRejection.NOT_YET_VALID);
+        } catch (SecurityException e) {
+            return TokenVerification.rejected(TokenRejection.INVALID_SIGNATURE);
+        } catch (Exception e) {
+            return TokenVerification.rejected(TokenRejection.MALFORMED);
+        }
+    }
+
+    private static long toSeconds(Date date) {
+        return date != null ? date.getTime() / 1000L : 0L;
+    }
+}
@@ -4,12 +4,18 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import com.spring.userservice.exception.ServiceUnavailableException;
+import com.spring.userservice.logging.SecurityEventLogger;
+import com.spring.userservice.logging.SecurityEventType;
+import com.spring.userservice.resilience.DegradedAuthentication;
+
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -28,13 +34,25 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     // Constants for headers and token prefixes
     private static final String AUTHORIZATION_HEADER = "Authorization";
     private static final String BEARER_PREFIX = "Bearer ";
+    private static final String WWW_AUTHENTICATE_HEADER = "WWW-Authenticate";
+    private static final String INVALID_TOKEN_CHALLENGE = "Bearer error=\"invalid_token\"";
+    private static final String UNAUTHORIZED_MESSAGE = "Unauthorized: Authentication token was either missing or invalid.";
+    private static final String UNKNOWN_USER_REASON = "unknown_user";
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+    private static final String RETRY_AFTER_SECONDS = "1";
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final SecurityEventLogger securityEventLogger;
+    private final DegradedAuthentication degradedAuthentication;
 
     /**
      * Filters incoming requests to validate the JWT and set the authentication details
-     * in the SecurityContext if the token is valid.
+     * in the SecurityContext if the token is valid. Rejected tokens are answered
+     * with a 401 right here, without an exception and without reaching the database.
+     * The user lookup runs in the filter lookup bulkhead; when it is full or the
+     * database fails, the request gets a 503, unless degraded mode is active and
+     * the user can be taken from the token claims.
      *
      * @param request the HTTP request object
      * @param response the HTTP response object
@@ -51,6 +69,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         // Retrieve Authorization header
         final String authHeader = request.getHeader(AUTHORIZATION_HEADER);
         final String jwt;
+        final TokenVerification verification;
         final String email;
 
         // Proceed if header is invalid or does not start with 'Bearer '
@@ -61,14 +80,35 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         // Extract JWT token by removing 'Bearer ' prefix
         jwt = authHeader.substring(BEARER_PREFIX.length());
-        email = jwtService.extractUsername(jwt); // Extract email from token
+        verification = jwtService.verifyToken(jwt);
+        if (!verification.isValid()) {
+            reject(response, verification.rejection().getReason());
+            return;
+        }
+        email = verification.claims().subject(); // Extract email from token
 
         // If the user email exists and authentication is not already set
         if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(email);
+            UserDetails userDetails;
+            if (degradedAuthentication.isActive()) {
+                userDetails = degradedAuthentication.fromClaims(verification.claims());
+            } else {
+                try {
+                    userDetails = this.userDetailsService.loadUserByUsername(email);
+                } catch (UsernameNotFoundException e) {
+                    reject(response, UNKNOWN_USER_REASON);
+                    return;
+                } catch (ServiceUnavailableException e) {
+                    if (!degradedAuthentication.isActive()) {
+                        unavailable(response, e.getMessage());
+                        return;
+                    }
+                    userDetails = degradedAuthentication.fromClaims(verification.claims());
+                }
+            }
 
             // Validate the token and set authentication
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            if (jwtService.isTokenValid(verification.claims(), userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -85,6 +125,35 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Answers a request carrying an unusable token with a plain 401.
+     *
+     * @param response the HTTP response object
+     * @param reason the rejection reason recorded in the security log
+     * @throws IOException in case of I/O errors
+     */
+    private void reject(HttpServletResponse response, String reason) throws IOException {
+        securityEventLogger.log(SecurityEventType.TOKEN_REJECTED, null, reason);
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setHeader(WWW_AUTHENTICATE_HEADER, INVALID_TOKEN_CHALLENGE);
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write(UNAUTHORIZED_MESSAGE);
+    }
+
+    /**
+     * Answers a request that cannot be served while the database is saturated or down.
+     *
+     * @param response the HTTP response object
+     * @param message the message explaining the failure
+     * @throws IOException in case of I/O errors
+     */
+    private void unavailable(HttpServletResponse response, String message) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(RETRY_AFTER_HEADER, RETRY_AFTER_SECONDS);
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write(message);
+    }
+
     /**
      * Determines whether the filter should be skipped for certain paths.
      *
@@ -1,110 +1,128 @@
 package com.spring.userservice.config;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.security.Key;
 import java.util.*;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Service class to handle JWT token creation, validation, and extraction.
+ * <p>
+ * Tokens are encoded and verified by a {@link TokenCodec} selected with the
+ * 'jwt.codec' property: 'jjwt' (default) uses the jjwt library, 'hs256'
+ * uses the allocation-light {@link Hs256TokenCodec}. When the latter is
+ * selected, its wire compatibility with jjwt is checked at startup.
+ * <p>
+ * Every token first goes through a small cache of recently rejected tokens
+ * and a structural and expiry pre-check, so junk, expired and replayed
+ * forged tokens are rejected before any signature is computed.
  */
 @Service
 public class JwtService {
 
+    private static final String JJWT_CODEC = "jjwt";
+    private static final String HS256_CODEC = "hs256";
+
     @Value("${jwt.secret}")
     private String secret;
 
+    @Value("${jwt.codec:jjwt}")
+    private String codec;
+
     // Token validity duration (1 day)  
     private static final long TOKEN_VALIDITY = 86400000L;
 
-    /**
-     * Generates a JWT token for the authenticated user.
-     *
-     * @param user UserDetails object of the authenticated user
-     * @return JWT token as a string
-     */
-    public String generateToken(UserDetails user) {
-        return Jwts.builder()
-        		.setSubject(user.getUsername())
-                .claim("authorities", populateAuthorities(user.getAuthorities()))
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + TOKEN_VALIDITY))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
-    }
+    @Value("${jwt.rejected-token-cache-size:4096}")
+    private int rejectedTokenCacheSize;
+
+    private final TokenPrecheck tokenPrecheck = new TokenPrecheck();
+    private TokenCodec tokenCodec;
+    private RejectedTokenCache rejectedTokenCache;
 
     /**
-     * Extracts the username from a JWT token.
+     * Builds the configured token codec from the secret.
      *
-     * @param token JWT token
-     * @return Username extracted from the token
+     * @throws IllegalStateException if the codec is unknown or not compatible with jjwt
      */
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    @PostConstruct
+    void initTokenCodec() {
+        rejectedTokenCache = new RejectedTokenCache(rejectedTokenCacheSize);
+        byte[] keyBytes = Decoders.BASE64.decode(secret);
+        TokenCodec jjwtCodec = new JjwtTokenCodec(keyBytes);
+        if (JJWT_CODEC.equals(codec)) {
+            tokenCodec = jjwtCodec;
+        } else if (HS256_CODEC.equals(codec)) {
+            TokenCodec hs256Codec = new Hs256TokenCodec(keyBytes);
+            verifyWireCompatibility(jjwtCodec, hs256Codec);
+            tokenCodec = hs256Codec;
+        } else {
+            throw new IllegalStateException("Unknown jwt.codec '" + codec + "', expected jjwt or hs256");
+        }
     }
 
     /**
-     * Extracts specific claims from a JWT token.
+     * Generates a JWT token for the authenticated user.
      *
-     * @param <T> Return type of the claim
-     * @param token JWT token
-     * @param claimsResolver Function to resolve the claim
-     * @return The extracted claim
+     * @param user UserDetails object of the authenticated user
+     * @return JWT token as a string
      */
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    public String generateToken(UserDetails user) {
+        long now = System.currentTimeMillis();
+        return tokenCodec.encode(new TokenClaims(
+                user.getUsername(),
+                populateAuthorities(user.getAuthorities()),
+                now / 1000L,
+                (now + TOKEN_VALIDITY) / 1000L));
     }
 
     /**
-     * Validates the JWT token against the provided UserDetails.
+     * Verifies a JWT token without throwing for bad tokens.
      *
      * @param token JWT token
-     * @param userDetails UserDetails of the authenticated user
-     * @return True if the token is valid, otherwise false
+     * @return the verified claims, or the reason the token was rejected
      */
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return username.equals(userDetails.getUsername());
+    public TokenVerification verifyToken(String token) {
+        if (rejectedTokenCache.contains(token)) {
+            return TokenVerification.rejected(TokenRejection.RECENTLY_REJECTED);
+        }
+        TokenRejection rejection = tokenPrecheck.check(token, System.currentTimeMillis());
+        if (rejection != null) {
+            return TokenVerification.rejected(rejection);
+        }
+        TokenVerification verification = tokenCodec.verify(token);
+        // A token that is not valid yet may become valid, so it must not be remembered
+        if (!verification.isValid() && verification.rejection() != TokenRejection.NOT_YET_VALID) {
+            rejectedTokenCache.add(token);
+        }
+        return verification;
     }
 
     /**
-     * Retrieves the signing key from the secret for token creation and validation.
+     * Validates already verified claims against the provided UserDetails.
      *
-     * @return Signing key
+     * @param claims verified token claims
+     * @param userDetails UserDetails of the authenticated user
+     * @return True if the claims belong to the user, otherwise false
      */
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public boolean isTokenValid(TokenClaims claims, UserDetails userDetails) {
+        return userDetails.getUsername().equals(claims.subject());
     }
 
     /**
-     * Extracts all claims from the JWT token.
-     *
-     * @param token JWT token
-     * @return Claims contained in the token
-     * @throws IllegalArgumentException if token parsing fails
+     * Checks that tokens issued by either codec are accepted by the other with identical claims.
      */
-    private Claims extractAllClaims(String token) {
-        try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Invalid token", e);
+    private static void verifyWireCompatibility(TokenCodec jjwtCodec, TokenCodec hs256Codec) {
+        long now = System.currentTimeMillis() / 1000L;
+        TokenClaims sample = new TokenClaims("wire-check+\u00e9\"\\@example.com", "ROLE_MEMBER,management:read", now, now + 60L);
+        if (!sample.equals(jjwtCodec.verify(hs256Codec.encode(sample)).claims())
+                || !sample.equals(hs256Codec.verify(jjwtCodec.encode(sample)).claims())) {
+            throw new IllegalStateException("hs256 token codec is not wire compatible with jjwt");
         }
     }
 
@@ -0,0 +1,54 @@
+package com.spring.userservice.config;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Small lossy cache of recently rejected tokens.
+ * <p>
+ * Tokens are stored as 64-bit FNV-1a hashes in a fixed-size direct-mapped
+ * table, so a replayed bad token is recognized without decoding or signing
+ * it again. Newer entries simply overwrite older ones in the same slot.
+ * Only tokens that can never become valid are recorded, so entries need
+ * no expiry.
+ */
+final class RejectedTokenCache {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+
+    /**
+     * @param capacity the number of slots, rounded up to a power of two
+     */
+    RejectedTokenCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    boolean contains(String token) {
+        long hash = hash(token);
+        return slots.get(index(hash)) == hash;
+    }
+
+    void add(String token) {
+        long hash = hash(token);
+        slots.lazySet(index(hash), hash);
+    }
+
+    private int index(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static long hash(String token) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < token.length(); i++) {
+            hash ^= token.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        // Zero marks an empty slot
+        return hash != 0 ? hash : 1;
+    }
+}
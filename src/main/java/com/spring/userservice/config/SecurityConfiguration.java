@@ -48,7 +48,7 @@ public class SecurityConfiguration {
         return http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(req ->
-                        req.requestMatchers("/auth/*")
+                        req.requestMatchers("/auth/*", "/actuator/health/**")
                                 .permitAll()
                                 .requestMatchers("/management/**").hasAnyRole(ADMIN.name(), MEMBER.name())
                                 .requestMatchers(GET, "/management/**").hasAnyAuthority(ADMIN_READ.name(), MEMBER_READ.name())
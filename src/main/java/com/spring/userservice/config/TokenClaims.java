@@ -0,0 +1,12 @@
+package com.spring.userservice.config;
+
+/**
+ * Claims carried by the access tokens issued by this service.
+ *
+ * @param subject the user's email
+ * @param authorities comma-separated authorities of the user
+ * @param issuedAt issue time in seconds since the epoch
+ * @param expiration expiration time in seconds since the epoch
+ */
+public record TokenClaims(String subject, String authorities, long issuedAt, long expiration) {
+}
@@ -0,0 +1,23 @@
+package com.spring.userservice.config;
+
+/**
+ * Encodes and decodes signed HS256 access tokens.
+ */
+public interface TokenCodec {
+
+    /**
+     * Creates a signed compact token carrying the given claims.
+     *
+     * @param claims the claims to encode
+     * @return the compact token
+     */
+    String encode(TokenClaims claims);
+
+    /**
+     * Verifies a compact token and returns its claims or the rejection reason.
+     *
+     * @param token the compact token
+     * @return the verification result; never throws for bad tokens
+     */
+    TokenVerification verify(String token);
+}
@@ -0,0 +1,315 @@
+package com.spring.userservice.config;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal pull parser for the flat JSON objects found in token headers and payloads.
+ * <p>
+ * The reader works directly on a UTF-8 byte range and only allocates for the
+ * string values it is asked to return. Keys are matched verbatim against
+ * their byte representation. Any structural error raises the shared
+ * {@link MalformedJsonException}, which carries no stack trace.
+ */
+final class TokenJsonReader {
+
+    /**
+     * Signals malformed input. A single stackless instance is reused.
+     */
+    static final class MalformedJsonException extends RuntimeException {
+
+        static final MalformedJsonException INSTANCE = new MalformedJsonException();
+
+        private MalformedJsonException() {
+            super("Malformed JSON", null, false, false);
+        }
+    }
+
+    private static final int MAX_DEPTH = 16;
+
+    private byte[] buf;
+    private int pos;
+    private int end;
+    private int keyStart;
+    private int keyEnd;
+    private boolean firstField;
+
+    /**
+     * Positions the reader at the start of a JSON document.
+     */
+    void reset(byte[] buf, int from, int to) {
+        this.buf = buf;
+        this.pos = from;
+        this.end = to;
+    }
+
+    void beginObject() {
+        skipWhitespace();
+        expect('{');
+        firstField = true;
+    }
+
+    /**
+     * Advances to the next field of the current object.
+     *
+     * @return true if positioned at a field value, false at the end of the object
+     */
+    boolean nextField() {
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return false;
+        }
+        if (!firstField) {
+            expect(',');
+            skipWhitespace();
+        }
+        firstField = false;
+        expect('"');
+        keyStart = pos;
+        skipStringBody();
+        keyEnd = pos - 1;
+        skipWhitespace();
+        expect(':');
+        skipWhitespace();
+        return true;
+    }
+
+    /**
+     * Checks that only whitespace follows the object.
+     */
+    void endDocument() {
+        skipWhitespace();
+        if (pos != end) {
+            throw MalformedJsonException.INSTANCE;
+        }
+    }
+
+    boolean keyEquals(byte[] key) {
+        int length = keyEnd - keyStart;
+        if (length != key.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buf[keyStart + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a string or null value.
+     */
+    String readString() {
+        if (peek() == 'n') {
+            expectLiteral("null");
+            return null;
+        }
+        expect('"');
+        int start = pos;
+        boolean ascii = true;
+        while (true) {
+            byte b = next();
+            if (b == '"') {
+                return new String(buf, start, pos - 1 - start,
+                        ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+            }
+            if (b == '\\') {
+                pos = start;
+                return readEscapedString();
+            }
+            if (b >= 0 && b < 0x20) {
+                throw MalformedJsonException.INSTANCE;
+            }
+            ascii &= b >= 0;
+        }
+    }
+
+    /**
+     * Reads a number value, truncating any fractional part.
+     */
+    long readLong() {
+        int start = pos;
+        boolean integral = true;
+        if (peek() == '-') {
+            pos++;
+        }
+        while (pos < end) {
+            byte b = buf[pos];
+            if (b >= '0' && b <= '9') {
+                pos++;
+            } else if (b == '.' || b == 'e' || b == 'E' || b == '+' || b == '-') {
+                integral = false;
+                pos++;
+            } else {
+                break;
+            }
+        }
+        int length = pos - start;
+        if (length == 0 || (length == 1 && buf[start] == '-')) {
+            throw MalformedJsonException.INSTANCE;
+        }
+        if (integral && length <= 18) {
+            long value = 0;
+            int i = buf[start] == '-' ? start + 1 : start;
+            for (; i < pos; i++) {
+                value = value * 10 + (buf[i] - '0');
+            }
+            return buf[start] == '-' ? -value : value;
+        }
+        try {
+            return (long) Double.parseDouble(new String(buf, start, length, StandardCharsets.ISO_8859_1));
+        } catch (NumberFormatException e) {
+            throw MalformedJsonException.INSTANCE;
+        }
+    }
+
+    /**
+     * Skips any JSON value, including nested objects and arrays.
+     */
+    void skipValue() {
+        int depth = 0;
+        do {
+            skipWhitespace();
+            byte b = peek();
+            switch (b) {
+                case '"' -> {
+                    pos++;
+                    skipStringBody();
+                }
+                case '{', '[' -> {
+                    pos++;
+                    if (++depth > MAX_DEPTH) {
+                        throw MalformedJsonException.INSTANCE;
+                    }
+                }
+                case '}', ']' -> {
+                    if (depth == 0) {
+                        throw MalformedJsonException.INSTANCE;
+                    }
+                    pos++;
+                    depth--;
+                }
+                case ',', ':' -> {
+                    if (depth == 0) {
+                        throw MalformedJsonException.INSTANCE;
+                    }
+                    pos++;
+                }
+                case 't' -> expectLiteral("true");
+                case 'f' -> expectLiteral("false");
+                case 'n' -> expectLiteral("null");
+                default -> readLong();
+            }
+        } while (depth > 0);
+    }
+
+    private String readEscapedString() {
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            int b = next() & 0xFF;
+            if (b == '"') {
+                return sb.toString();
+            }
+            if (b == '\\') {
+                byte escaped = next();
+                switch (escaped) {
+                    case '"' -> sb.append('"');
+                    case '\\' -> sb.append('\\');
+                    case '/' -> sb.append('/');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> sb.append((char) readHex4());
+                    default -> throw MalformedJsonException.INSTANCE;
+                }
+            } else if (b < 0x20) {
+                throw MalformedJsonException.INSTANCE;
+            } else if (b < 0x80) {
+                sb.append((char) b);
+            } else if ((b & 0xE0) == 0xC0) {
+                sb.append((char) (((b & 0x1F) << 6) | continuation()));
+            } else if ((b & 0xF0) == 0xE0) {
+                sb.append((char) (((b & 0x0F) << 12) | (continuation() << 6) | continuation()));
+            } else if ((b & 0xF8) == 0xF0) {
+                sb.appendCodePoint(((b & 0x07) << 18) | (continuation() << 12) | (continuation() << 6) | continuation());
+            } else {
+                throw MalformedJsonException.INSTANCE;
+            }
+        }
+    }
+
+    private int continuation() {
+        int b = next() & 0xFF;
+        if ((b & 0xC0) != 0x80) {
+            throw MalformedJsonException.INSTANCE;
+        }
+        return b & 0x3F;
+    }
+
+    private int readHex4() {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(next(), 16);
+            if (digit < 0) {
+                throw MalformedJsonException.INSTANCE;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    private void skipStringBody() {
+        while (true) {
+            byte b = next();
+            if (b == '"') {
+                return;
+            }
+            if (b == '\\') {
+                next();
+            } else if (b >= 0 && b < 0x20) {
+                throw MalformedJsonException.INSTANCE;
+            }
+        }
+    }
+
+    private void expectLiteral(String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            if (next() != literal.charAt(i)) {
+                throw MalformedJsonException.INSTANCE;
+            }
+        }
+    }
+
+    private void expect(char c) {
+        if (next() != c) {
+            throw MalformedJsonException.INSTANCE;
+        }
+    }
+
+    private byte peek() {
+        if (pos >= end) {
+            throw MalformedJsonException.INSTANCE;
+        }
+        return buf[pos];
+    }
+
+    private byte next() {
+        if (pos >= end) {
+            throw MalformedJsonException.INSTANCE;
+        }
+        return buf[pos++];
+    }
+
+    private void skipWhitespace() {
+        while (pos < end) {
+            byte b = buf[pos];
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                return;
+            }
+            pos++;
+        }
+    }
+}
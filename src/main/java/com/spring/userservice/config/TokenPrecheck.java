@@ -0,0 +1,97 @@
+package com.spring.userservice.config;
+
+/**
+ * Cheap checks applied to a token before its signature is computed.
+ * <p>
+ * Verifies the compact structure (three non-empty base64url segments, an
+ * HS256-sized signature, a bounded length) and reads only the 'exp' and
+ * 'nbf' claims from the payload. Malformed, expired and not yet valid
+ * tokens are rejected without running the HMAC, without exceptions and
+ * without allocating.
+ * Passing the pre-check says nothing about authenticity.
+ */
+final class TokenPrecheck {
+
+    static final int MAX_TOKEN_LENGTH = 8192;
+
+    private static final int ENCODED_SIGNATURE_LENGTH = Base64Url.encodedLength(32);
+    private static final byte[] EXP = {'e', 'x', 'p'};
+    private static final byte[] NBF = {'n', 'b', 'f'};
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Pre-checks a token.
+     *
+     * @param token the compact token
+     * @param nowMillis the current time
+     * @return the rejection reason, or null if the token may be verified
+     */
+    TokenRejection check(String token, long nowMillis) {
+        int length = token.length();
+        if (length > MAX_TOKEN_LENGTH) {
+            return TokenRejection.MALFORMED;
+        }
+        int firstDot = -1;
+        int secondDot = -1;
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c == '.') {
+                if (firstDot < 0) {
+                    firstDot = i;
+                } else if (secondDot < 0) {
+                    secondDot = i;
+                } else {
+                    return TokenRejection.MALFORMED;
+                }
+            } else if (!Base64Url.isAlphabet(c)) {
+                return TokenRejection.MALFORMED;
+            }
+        }
+        if (firstDot <= 0 || secondDot <= firstDot + 1 || length - secondDot - 1 != ENCODED_SIGNATURE_LENGTH) {
+            return TokenRejection.MALFORMED;
+        }
+
+        Scratch s = scratch.get();
+        byte[] payload = s.payload(secondDot - firstDot);
+        int payloadLength = Base64Url.decode(token, firstDot + 1, secondDot, payload, 0);
+        if (payloadLength < 0) {
+            return TokenRejection.MALFORMED;
+        }
+        try {
+            TokenJsonReader reader = s.reader;
+            reader.reset(payload, 0, payloadLength);
+            reader.beginObject();
+            while (reader.nextField()) {
+                if (reader.keyEquals(EXP)) {
+                    if (nowMillis > reader.readLong() * 1000L) {
+                        return TokenRejection.EXPIRED;
+                    }
+                } else if (reader.keyEquals(NBF)) {
+                    if (nowMillis < reader.readLong() * 1000L) {
+                        return TokenRejection.NOT_YET_VALID;
+                    }
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endDocument();
+        } catch (TokenJsonReader.MalformedJsonException e) {
+            return TokenRejection.MALFORMED;
+        }
+        return null;
+    }
+
+    private static final class Scratch {
+
+        private final TokenJsonReader reader = new TokenJsonReader();
+        private byte[] payload = new byte[512];
+
+        byte[] payload(int length) {
+            if (payload.length < length) {
+                payload = new byte[Math.max(length, payload.length * 2)];
+            }
+            return payload;
+        }
+    }
+}
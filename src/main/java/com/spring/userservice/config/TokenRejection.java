@@ -0,0 +1,22 @@
+package com.spring.userservice.config;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Reasons for rejecting an access token, in the order the checks are applied.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum TokenRejection {
+
+    RECENTLY_REJECTED("recently_rejected"),
+    MALFORMED("malformed"),
+    EXPIRED("expired"),
+    NOT_YET_VALID("not_yet_valid"),
+    INVALID_SIGNATURE("invalid_signature"),
+
+    ;
+
+    private final String reason;
+}
@@ -0,0 +1,35 @@
+package com.spring.userservice.config;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Outcome of verifying an access token: either the verified claims or the
+ * reason the token was rejected. Rejections are shared constants, so
+ * rejecting a token allocates nothing.
+ *
+ * @param claims the verified claims, or null if rejected
+ * @param rejection the rejection reason, or null if valid
+ */
+public record TokenVerification(TokenClaims claims, TokenRejection rejection) {
+
+    private static final Map<TokenRejection, TokenVerification> REJECTED = new EnumMap<>(TokenRejection.class);
+
+    static {
+        for (TokenRejection rejection : TokenRejection.values()) {
+            REJECTED.put(rejection, new TokenVerification(null, rejection));
+        }
+    }
+
+    public static TokenVerification valid(TokenClaims claims) {
+        return new TokenVerification(claims, null);
+    }
+
+    public static TokenVerification rejected(TokenRejection rejection) {
+        return REJECTED.get(rejection);
+    }
+
+    public boolean isValid() {
+        return rejection == null;
+    }
+}
@@ -0,0 +1,62 @@
+package com.spring.userservice.config;
+
+import com.spring.userservice.entity.User;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Small lossy cache of the users loaded by the token filter.
+ * <p>
+ * Users are kept in a fixed-size direct-mapped table keyed by email, so a
+ * client polling with the same token is authenticated without a query on
+ * every request. Newer entries simply overwrite older ones in the same slot.
+ * Entries expire after the configured TTL, which bounds how long a role
+ * change or a deleted account made elsewhere stays unseen. Unknown users are
+ * never cached.
+ */
+final class UserLookupCache {
+
+    private record Entry(String email, User user, long expiresAtNanos) {
+    }
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final long ttlNanos;
+
+    /**
+     * @param capacity the number of slots, rounded up to a power of two
+     * @param ttlNanos how long an entry may be served; 0 disables the cache
+     */
+    UserLookupCache(int capacity, long ttlNanos) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.ttlNanos = ttlNanos;
+    }
+
+    /**
+     * @return the cached user, or null if absent or expired
+     */
+    User get(String email) {
+        if (ttlNanos <= 0) {
+            return null;
+        }
+        Entry entry = slots.get(index(email));
+        if (entry == null || !entry.email().equals(email) || entry.expiresAtNanos() - System.nanoTime() < 0) {
+            return null;
+        }
+        return entry.user();
+    }
+
+    void put(String email, User user) {
+        if (ttlNanos <= 0) {
+            return;
+        }
+        slots.lazySet(index(email), new Entry(email, user, System.nanoTime() + ttlNanos));
+    }
+
+    private int index(String email) {
+        int hash = email.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
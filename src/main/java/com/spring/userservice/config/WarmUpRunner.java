@@ -0,0 +1,207 @@
+package com.spring.userservice.config;
+
+import com.spring.userservice.entity.Role;
+import com.spring.userservice.entity.User;
+import com.spring.userservice.exception.ServiceUnavailableException;
+import com.spring.userservice.repository.UserRepository;
+import com.spring.userservice.resilience.DatabaseBulkheads;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationContext;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Warms up the request hot paths before the node reports ready.
+ * <p>
+ * Spring Boot only switches the readiness state to ACCEPTING_TRAFFIC once all
+ * application runners have completed, so this runner holds the readiness
+ * probe down while it repeatedly generates, verifies and validates tokens,
+ * checks a password against a BCrypt hash and looks up a non-existent
+ * warm-up account. This JIT-compiles the token and BCrypt code, prepares the
+ * findByEmail query and opens pooled connections. Lookups go through the
+ * filter-lookup bulkhead, so its read-only transaction and shard selection
+ * are warmed together with the query. The token, BCrypt and
+ * repository paths are timed separately, because BCrypt and database noise
+ * would drown out the token timings in a shared figure. Each path is
+ * exercised in batches until the average time per operation of consecutive
+ * batches stays within the configured tolerance, and warm-up ends once every
+ * path is stable or the maximum duration is reached. Nothing is written to
+ * the database.
+ */
+@Component
+@ConditionalOnProperty(name = "warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class WarmUpRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmUpRunner.class);
+
+    private static final String WARM_UP_PASSWORD = "warm-up-password";
+    private static final int LOOKUPS_PER_BATCH = 20;
+
+    private final ApplicationContext applicationContext;
+    private final JwtService jwtService;
+    private final PasswordEncoder passwordEncoder;
+    private final UserRepository userRepository;
+    private final DatabaseBulkheads databaseBulkheads;
+    private final Duration maxDuration;
+    private final int batchSize;
+    private final int stableBatches;
+    private final double tolerance;
+    private final String email;
+
+    public WarmUpRunner(
+            ApplicationContext applicationContext,
+            JwtService jwtService,
+            PasswordEncoder passwordEncoder,
+            UserRepository userRepository,
+            DatabaseBulkheads databaseBulkheads,
+            @Value("${warmup.max-duration:PT60S}") Duration maxDuration,
+            @Value("${warmup.batch-size:500}") int batchSize,
+            @Value("${warmup.stable-batches:3}") int stableBatches,
+            @Value("${warmup.tolerance:0.1}") double tolerance,
+            @Value("${warmup.email:warmup@user-service.invalid}") String email) {
+        this.applicationContext = applicationContext;
+        this.jwtService = jwtService;
+        this.passwordEncoder = passwordEncoder;
+        this.userRepository = userRepository;
+        this.databaseBulkheads = databaseBulkheads;
+        this.maxDuration = maxDuration;
+        this.batchSize = batchSize;
+        this.stableBatches = stableBatches;
+        this.tolerance = tolerance;
+        this.email = email;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        AvailabilityChangeEvent.publish(applicationContext, ReadinessState.REFUSING_TRAFFIC);
+
+        User warmUpUser = User.builder()
+                .email(email)
+                .role(Role.MEMBER)
+                .build();
+        String passwordHash = passwordEncoder.encode(WARM_UP_PASSWORD);
+
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        PathTiming tokens = new PathTiming("token");
+        PathTiming bcrypt = new PathTiming("bcrypt");
+        PathTiming repository = new PathTiming("repository");
+        int batches = 0;
+
+        while (!(tokens.isStable() && bcrypt.isStable() && repository.isStable()) && System.nanoTime() < deadline) {
+            if (!tokens.isStable()) {
+                long batchStart = System.nanoTime();
+                for (int i = 0; i < batchSize; i++) {
+                    exerciseTokens(warmUpUser);
+                }
+                tokens.record(System.nanoTime() - batchStart, batchSize);
+            }
+            if (!bcrypt.isStable()) {
+                long batchStart = System.nanoTime();
+                passwordEncoder.matches(WARM_UP_PASSWORD, passwordHash);
+                bcrypt.record(System.nanoTime() - batchStart, 1);
+            }
+            if (!repository.isStable()) {
+                long batchStart = System.nanoTime();
+                if (exerciseRepository(batches)) {
+                    repository.record(System.nanoTime() - batchStart, LOOKUPS_PER_BATCH);
+                } else {
+                    repository.markUnavailable();
+                }
+            }
+            batches++;
+        }
+
+        log.info("Warm-up finished in {} ms after {} batches ({}): {}; {}; {}",
+                Duration.ofNanos(System.nanoTime() - start).toMillis(),
+                batches,
+                tokens.isStable() && bcrypt.isStable() && repository.isStable() ? "stable" : "time limit reached",
+                tokens,
+                bcrypt,
+                repository);
+    }
+
+    private void exerciseTokens(User warmUpUser) {
+        String token = jwtService.generateToken(warmUpUser);
+        TokenVerification verification = jwtService.verifyToken(token);
+        if (!verification.isValid() || !jwtService.isTokenValid(verification.claims(), warmUpUser)) {
+            throw new IllegalStateException("Warm-up token was rejected: " + verification.rejection());
+        }
+    }
+
+    /**
+     * Runs read-only lookups; the email varies so that every shard is reached.
+     *
+     * @return false if the database is not reachable
+     */
+    private boolean exerciseRepository(int batch) {
+        try {
+            for (int i = 0; i < LOOKUPS_PER_BATCH; i++) {
+                String lookupEmail = i == 0 ? email : batch + "." + i + "." + email;
+                databaseBulkheads.getFilterLookup().call(lookupEmail, () -> userRepository.findByEmail(lookupEmail));
+            }
+            return true;
+        } catch (ServiceUnavailableException | DataAccessException e) {
+            log.warn("Warm-up skipped database lookups: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Batch timings of one warm-up path.
+     */
+    private final class PathTiming {
+
+        private final String name;
+        private int batches;
+        private int stable;
+        private double firstNanosPerOp;
+        private double nanosPerOp;
+        private boolean unavailable;
+
+        PathTiming(String name) {
+            this.name = name;
+        }
+
+        void record(long nanos, int operations) {
+            double current = (double) nanos / operations;
+            if (batches == 0) {
+                firstNanosPerOp = current;
+            } else if (Math.abs(current - nanosPerOp) <= nanosPerOp * tolerance) {
+                stable++;
+            } else {
+                stable = 0;
+            }
+            nanosPerOp = current;
+            batches++;
+        }
+
+        void markUnavailable() {
+            unavailable = true;
+        }
+
+        boolean isStable() {
+            return unavailable || stable >= stableBatches;
+        }
+
+        @Override
+        public String toString() {
+            if (unavailable) {
+                return name + " unavailable";
+            }
+            return String.format("%s %.1f us/op (first %.1f us/op, %d batches, %s)",
+                    name, nanosPerOp / 1000d, firstNanosPerOp / 1000d, batches, isStable() ? "stable" : "not stable");
+        }
+    }
+}
@@ -1,16 +1,37 @@
 package com.spring.userservice.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.userservice.dto.UserSummary;
+import com.spring.userservice.entity.User;
+import com.spring.userservice.service.UserDirectory;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/admin")
 @PreAuthorize("hasRole('ADMIN')")
+@RequiredArgsConstructor
 public class AdminController {
 
+    private static final int MAX_LIST_LIMIT = 10_000;
+
+    private final UserDirectory userDirectory;
+    private final ObjectMapper objectMapper;
+
     @GetMapping
     @PreAuthorize("hasAuthority('admin:read')")
     public String getAdmin() {
@@ -23,4 +44,45 @@ public class AdminController {
         return "Secured Endpoint :: POST - Admin controller";
     }
 
+    /**
+     * Lists users across all shards in ascending id order.
+     * 
+     * The response is written as a JSON array while the shards are being
+     * read, so large listings are never materialized in memory.
+     * 
+     * @param limit the maximum number of users to return, capped at 10000
+     * @return a streamed JSON array of user summaries, or 400 if the limit
+     *         is not positive
+     */
+    @GetMapping("/users")
+    @PreAuthorize("hasAuthority('admin:read')")
+    public ResponseEntity<StreamingResponseBody> listUsers(@RequestParam(defaultValue = "1000") int limit) {
+        // Validated up front, since the stream fails only after the response has started
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        int cappedLimit = Math.min(limit, MAX_LIST_LIMIT);
+        StreamingResponseBody body = out -> {
+            try (Stream<User> users = userDirectory.streamAll().limit(cappedLimit);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                Iterator<User> iterator = users.iterator();
+                while (iterator.hasNext()) {
+                    generator.writeObject(toSummary(iterator.next()));
+                }
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private static UserSummary toSummary(User user) {
+        return UserSummary.builder()
+                .id(user.getId())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .email(user.getEmail())
+                .role(user.getRole())
+                .build();
+    }
 }
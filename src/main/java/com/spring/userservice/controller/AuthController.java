@@ -4,11 +4,13 @@ import com.spring.userservice.dto.AuthenticationRequest;
 import com.spring.userservice.dto.AuthenticationResponse;
 import com.spring.userservice.dto.RegisterRequest;
 import com.spring.userservice.service.AuthService;
+import com.spring.userservice.service.IdempotencyService;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 /**
  * Authentication controller that provides endpoints for user registration and authentication.
@@ -19,18 +21,50 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class AuthController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final AuthService authService;
+    private final IdempotencyService idempotencyService;
 
     /**
      * Endpoint to register a new user.
+     * <p>
+     * When an Idempotency-Key header is supplied, retries carrying the same key
+     * and the same registration data, password included, get a fresh token for
+     * the originally registered user without registering again; such replays
+     * are marked with an Idempotent-Replayed header.
      *
      * @param registerRequest the request object containing user registration data
+     * @param idempotencyKey optional client generated key identifying this registration attempt
      * @return a response containing the authentication token for the newly registered user
      */
     @PostMapping("/register")
-    public ResponseEntity<AuthenticationResponse> register(@RequestBody RegisterRequest registerRequest) {
-        AuthenticationResponse authResponse = authService.register(registerRequest);
-        return ResponseEntity.status(HttpStatus.CREATED).body(authResponse);  
+    public ResponseEntity<AuthenticationResponse> register(
+            @RequestBody RegisterRequest registerRequest,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            AuthenticationResponse authResponse = authService.register(registerRequest);
+            return ResponseEntity.status(HttpStatus.CREATED).body(authResponse);  
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyService.MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + IDEMPOTENCY_KEY_HEADER + " header");
+        }
+
+        String requestHash = idempotencyService.fingerprint(
+                registerRequest.getEmail(),
+                registerRequest.getPassword(),
+                registerRequest.getFirstName(),
+                registerRequest.getLastName(),
+                registerRequest.getRole() != null ? registerRequest.getRole().name() : null);
+        IdempotencyService.Result result = idempotencyService.execute(idempotencyKey, requestHash,
+                registerRequest.getEmail(), onSaved -> authService.registerUser(registerRequest, onSaved));
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.CREATED);
+        if (result.replayed()) {
+            response.header(IDEMPOTENT_REPLAYED_HEADER, "true");
+        }
+        return response.body(authService.createAuthenticationResponse(result.user()));
     }
 
     /**
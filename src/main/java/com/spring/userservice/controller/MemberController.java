@@ -1,9 +1,19 @@
 package com.spring.userservice.controller;
 
+import com.spring.userservice.dto.UserProfile;
+import com.spring.userservice.service.UserProfileService;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * Controller for handling member-related operations.
@@ -14,8 +24,11 @@ import org.springframework.web.bind.annotation.RestController;
  */
 @RestController
 @RequestMapping("/management")
+@RequiredArgsConstructor
 public class MemberController {
 
+    private final UserProfileService userProfileService;
+
     /**
      * Handles GET requests for the member endpoint.
      * 
@@ -42,4 +55,34 @@ public class MemberController {
     public String post() {
         return "POST:: management controller";
     }
+
+    /**
+     * Handles GET requests for the current user's profile.
+     * 
+     * The response carries a strong ETag derived from the user's id and 
+     * profile content, including role and permissions. The profile is built 
+     * from the user the token filter authenticated the request with, so a 
+     * request whose If-None-Match matches is answered with 304 Not Modified 
+     * without a further query.
+     * 
+     * @param principal the authenticated user
+     * @param request the current request, used for the conditional check
+     * @return the profile, 304 Not Modified, or 404 if the user no longer exists
+     */
+    @GetMapping("/me")
+    public ResponseEntity<UserProfile> getProfile(@AuthenticationPrincipal UserDetails principal, WebRequest request) {
+        UserProfile profile = userProfileService.profileOf(principal).orElse(null);
+        if (profile == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String etag = UserProfileService.etag(profile);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(profile);
+    }
 }
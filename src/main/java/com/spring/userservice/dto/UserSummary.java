@@ -0,0 +1,25 @@
+package com.spring.userservice.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.spring.userservice.entity.Role;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserSummary {
+    // Sharded ids exceed JavaScript's safe integer range
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private Role role;
+}
@@ -0,0 +1,78 @@
+package com.spring.userservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * Persisted record of a request executed under an Idempotency-Key.
+ * 
+ * The key is the primary key, so concurrent attempts on different nodes
+ * to reserve the same key are serialized by the database. A record whose
+ * user email is still null has been reserved but not completed yet.
+ * Only a keyed hash of the original request and the email of the
+ * registered user are stored, never the password or an issued token.
+ */
+@Entity
+@Table(name = "idempotency_key")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class IdempotencyRecord implements Persistable<String> {
+
+    @Id
+    @Column(length = 128)
+    private String idempotencyKey;
+
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(length = 255)
+    private String userEmail;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private Instant reservedAt;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    @Transient
+    @Builder.Default
+    private boolean newRecord = true;
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    /**
+     * Records are always inserted rather than merged, so a duplicate key
+     * fails with a constraint violation instead of overwriting the original.
+     */
+    @Override
+    public boolean isNew() {
+        return newRecord;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newRecord = false;
+    }
+
+    public boolean isCompleted() {
+        return userEmail != null;
+    }
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
@@ -0,0 +1,54 @@
+package com.spring.userservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Event waiting in the transactional outbox.
+ * 
+ * Events are inserted in the same transaction as the change they describe
+ * and later claimed by a dispatcher through a time-limited lease. An event
+ * without a published time is pending; an expired lease makes it claimable
+ * again, which also serves as the retry backoff after a failed delivery.
+ */
+@Entity
+@Table(name = "outbox_event", indexes = {
+        @Index(name = "idx_outbox_event_pending", columnList = "publishedAt, id"),
+        @Index(name = "idx_outbox_event_aggregate", columnList = "aggregateId, publishedAt")
+})
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long aggregateId;
+
+    @Column(nullable = false, length = 64)
+    private String eventType;
+
+    @Column(nullable = false, length = 4000)
+    private String payload;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private Instant publishedAt;
+
+    private int attempts;
+
+    @Column(length = 64)
+    private String leaseOwner;
+
+    private Instant leaseExpiresAt;
+}
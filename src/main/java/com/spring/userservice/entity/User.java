@@ -5,9 +5,12 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import com.spring.userservice.shard.UserIdGenerator;
+
 import java.util.Collection;
 
 @Entity
@@ -19,8 +22,9 @@ import java.util.Collection;
 public class User implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Integer id;
+    @GeneratedValue(generator = "user-id")
+    @GenericGenerator(name = "user-id", type = UserIdGenerator.class)
+    private Long id;
 
     private String firstName;
 
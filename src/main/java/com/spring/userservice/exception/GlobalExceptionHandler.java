@@ -3,32 +3,60 @@ package com.spring.userservice.exception;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import com.spring.userservice.logging.SecurityEventLogger;
+import com.spring.userservice.logging.SecurityEventType;
+
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.io.IOException;
 
 import org.springframework.http.HttpStatus;
 
 @ControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
+    private final SecurityEventLogger securityEventLogger;
+
     @ExceptionHandler(CustomAuthenticationException.class)
     public ResponseEntity<String> handleAuthenticationException(CustomAuthenticationException ex) {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ex.getMessage());
     }
 
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<String> handleIdempotencyConflictException(IdempotencyConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<String> handleServiceUnavailableException(ServiceUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ex.getMessage());
+    }
+
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<String> handleAccessDeniedException(AccessDeniedException ex) {
+        securityEventLogger.log(SecurityEventType.ACCESS_DENIED, currentPrincipal(), null);
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access Denied: You don't have the necessary permissions.");
     }
     
     @ExceptionHandler(AuthenticationException.class)
     public void handleAuthenticationException(HttpServletResponse response, AuthenticationException ex) throws IOException {
+        securityEventLogger.log(SecurityEventType.AUTH_FAILURE, currentPrincipal(), ex.getClass().getSimpleName());
         response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Unauthorized: Authentication token was either missing or invalid.");
     }
-}
 
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+}
@@ -0,0 +1,176 @@
+package com.spring.userservice.logging;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes security events as single-line JSON records to the dedicated
+ * 'security.events' logger, which is backed by an asynchronous appender
+ * (see logback-spring.xml).
+ * <p>
+ * Every event type is sampled and rate limited independently so that a burst
+ * of bad tokens cannot flood the log. Events dropped by the rate limit are
+ * counted and reported in the 'suppressed' field of the next record written
+ * for the same type. Records are encoded into a per-thread reusable buffer
+ * so the only allocation on the logging path is the final message string.
+ */
+@Component
+public class SecurityEventLogger {
+
+    private static final Logger SECURITY_LOG = LoggerFactory.getLogger("security.events");
+
+    private static final String PROPERTY_PREFIX = "security.events.";
+    private static final int MAX_FIELD_LENGTH = 256;
+    private static final long WINDOW_MILLIS = 1000L;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final boolean enabled;
+    private final Map<SecurityEventType, EventPolicy> policies = new EnumMap<>(SecurityEventType.class);
+
+    public SecurityEventLogger(
+            @Value("${security.events.enabled:true}") boolean enabled,
+            Environment environment) {
+        this.enabled = enabled;
+        for (SecurityEventType type : SecurityEventType.values()) {
+            double sampleRate = environment.getProperty(
+                    PROPERTY_PREFIX + type.getKey() + ".sample-rate", Double.class, type.getDefaultSampleRate());
+            int maxPerSecond = environment.getProperty(
+                    PROPERTY_PREFIX + type.getKey() + ".max-per-second", Integer.class, type.getDefaultMaxPerSecond());
+            policies.put(type, new EventPolicy(sampleRate, maxPerSecond));
+        }
+    }
+
+    /**
+     * Records a security event for the current request.
+     *
+     * @param type the kind of security event
+     * @param principal the user the event relates to, or null if unknown
+     * @param reason a short machine-readable reason, or null
+     */
+    public void log(SecurityEventType type, String principal, String reason) {
+        if (!enabled || !SECURITY_LOG.isInfoEnabled()) {
+            return;
+        }
+        EventPolicy policy = policies.get(type);
+        if (!policy.sample()) {
+            return;
+        }
+        long suppressed = policy.acquire(System.currentTimeMillis());
+        if (suppressed < 0) {
+            return;
+        }
+        SECURITY_LOG.info(encode(type, principal, reason, suppressed, currentRequest()));
+    }
+
+    /**
+     * Encodes an event as a JSON object into the calling thread's buffer.
+     */
+    private String encode(SecurityEventType type, String principal, String reason,
+                          long suppressed, HttpServletRequest request) {
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        sb.append("{\"ts\":").append(System.currentTimeMillis());
+        sb.append(",\"event\":\"").append(type.getKey()).append('"');
+        appendField(sb, "principal", principal);
+        if (request != null) {
+            appendField(sb, "ip", request.getRemoteAddr());
+            appendField(sb, "method", request.getMethod());
+            appendField(sb, "path", request.getRequestURI());
+        }
+        appendField(sb, "reason", reason);
+        if (suppressed > 0) {
+            sb.append(",\"suppressed\":").append(suppressed);
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static void appendField(StringBuilder sb, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        sb.append(",\"").append(name).append("\":\"");
+        int length = Math.min(value.length(), MAX_FIELD_LENGTH);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    private static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            return servletAttributes.getRequest();
+        }
+        return null;
+    }
+
+    /**
+     * Sampling and fixed-window rate limiting state for one event type.
+     */
+    private static final class EventPolicy {
+
+        private final double sampleRate;
+        private final int maxPerSecond;
+        // Current window (epoch seconds) in the high 32 bits, events taken in it in the low 32 bits
+        private final AtomicLong window = new AtomicLong();
+        private final AtomicLong suppressed = new AtomicLong();
+
+        EventPolicy(double sampleRate, int maxPerSecond) {
+            this.sampleRate = sampleRate;
+            this.maxPerSecond = maxPerSecond;
+        }
+
+        boolean sample() {
+            return sampleRate >= 1.0d || (sampleRate > 0.0d && ThreadLocalRandom.current().nextDouble() < sampleRate);
+        }
+
+        /**
+         * Takes a slot in the current window.
+         *
+         * @return the number of events suppressed since the last written one,
+         *         or -1 if this event must be suppressed as well
+         */
+        long acquire(long now) {
+            long current = now / WINDOW_MILLIS;
+            while (true) {
+                long state = window.get();
+                long count = (state >>> 32) == current ? state & 0xFFFFFFFFL : 0L;
+                if (count >= maxPerSecond) {
+                    suppressed.incrementAndGet();
+                    return -1;
+                }
+                if (window.compareAndSet(state, (current << 32) | (count + 1))) {
+                    return suppressed.getAndSet(0);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.spring.userservice.logging;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Enum representing the security events written to the structured security log.
+ * 
+ * Each event carries the key used in the encoded log line and in configuration
+ * (e.g. 'security.events.auth-success.sample-rate'), together with a default
+ * sample rate and a default per-second rate limit. Successful authentications
+ * are frequent and low in signal, so they are sampled; failures and denials
+ * are always recorded up to their rate limit.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum SecurityEventType {
+
+    AUTH_SUCCESS("auth-success", 0.1d, 50),
+    AUTH_FAILURE("auth-failure", 1.0d, 100),
+    TOKEN_REJECTED("token-rejected", 1.0d, 100),
+    ACCESS_DENIED("access-denied", 1.0d, 100),
+
+    ;
+
+    private final String key;
+    private final double defaultSampleRate;
+    private final int defaultMaxPerSecond;
+}
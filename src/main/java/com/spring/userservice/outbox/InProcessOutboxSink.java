@@ -0,0 +1,27 @@
+package com.spring.userservice.outbox;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * OutboxSink that publishes each event as a Spring application event, for
+ * in-process consumers and local testing. Listeners run synchronously, so
+ * a failing listener fails the batch and it is retried.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "in-process", matchIfMissing = true)
+@RequiredArgsConstructor
+public class InProcessOutboxSink implements OutboxSink {
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    public void publish(List<OutboxMessage> messages) {
+        messages.forEach(applicationEventPublisher::publishEvent);
+    }
+}
@@ -0,0 +1,197 @@
+package com.spring.userservice.outbox;
+
+import com.spring.userservice.entity.OutboxEvent;
+import com.spring.userservice.repository.OutboxEventRepository;
+import com.spring.userservice.shard.ShardContext;
+import com.spring.userservice.shard.UserShardRouter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Publishes outbox events to the configured {@link OutboxSink} in batches.
+ * <p>
+ * Each poll visits every shard and repeatedly claims a batch of events under
+ * a lease owned by this node, publishes it and marks it published. Only the
+ * oldest pending event of each user is claimable, so events of one user are
+ * delivered in order even with several dispatching nodes. A failed batch
+ * is released with an exponential backoff and retried, so delivery is
+ * at-least-once.
+ * <p>
+ * Metrics: 'outbox.lag' (age of the oldest pending event, in seconds),
+ * 'outbox.events.published', 'outbox.events.failed', 'outbox.batch' and
+ * 'outbox.dispatch.failures' (per shard). The lag is measured separately
+ * from dispatching, and a shard whose oldest pending event cannot be read
+ * keeps its last known one, so the lag keeps growing during an outage
+ * instead of dropping to zero.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+    private static final long NO_PENDING_EVENT = Long.MAX_VALUE;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxSink outboxSink;
+    private final UserShardRouter userShardRouter;
+    private final int batchSize;
+    private final int maxBatchesPerPoll;
+    private final Duration leaseDuration;
+    private final Duration retention;
+    private final String owner = UUID.randomUUID().toString();
+
+    private final AtomicLongArray oldestPendingMillis;
+    private final Counter[] dispatchFailureCounters;
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+
+    public OutboxDispatcher(
+            OutboxEventRepository outboxEventRepository,
+            OutboxSink outboxSink,
+            UserShardRouter userShardRouter,
+            MeterRegistry meterRegistry,
+            @Value("${outbox.batch-size:100}") int batchSize,
+            @Value("${outbox.max-batches-per-poll:10}") int maxBatchesPerPoll,
+            @Value("${outbox.lease-duration:PT30S}") Duration leaseDuration,
+            @Value("${outbox.retention:P7D}") Duration retention) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxSink = outboxSink;
+        this.userShardRouter = userShardRouter;
+        this.batchSize = batchSize;
+        this.maxBatchesPerPoll = maxBatchesPerPoll;
+        this.leaseDuration = leaseDuration;
+        this.retention = retention;
+        this.publishedCounter = meterRegistry.counter("outbox.events.published");
+        this.failedCounter = meterRegistry.counter("outbox.events.failed");
+        this.batchTimer = meterRegistry.timer("outbox.batch");
+        int shardCount = userShardRouter.getShardCount();
+        this.oldestPendingMillis = new AtomicLongArray(shardCount);
+        this.dispatchFailureCounters = new Counter[shardCount];
+        for (int shard = 0; shard < shardCount; shard++) {
+            oldestPendingMillis.set(shard, NO_PENDING_EVENT);
+            dispatchFailureCounters[shard] = meterRegistry.counter("outbox.dispatch.failures", "shard", String.valueOf(shard));
+        }
+        Gauge.builder("outbox.lag", this, dispatcher -> dispatcher.getLagMillis() / 1000d)
+                .description("Age of the oldest pending outbox event")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Dispatches pending events of every shard.
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval:PT1S}")
+    public void dispatch() {
+        for (int shard = 0; shard < userShardRouter.getShardCount(); shard++) {
+            try (ShardContext.Scope ignored = ShardContext.enter(shard)) {
+                try {
+                    dispatchShard(shard);
+                } catch (RuntimeException e) {
+                    dispatchFailureCounters[shard].increment();
+                    log.warn("Outbox dispatch failed on shard {}: {}", shard, e.getMessage());
+                }
+                try {
+                    Instant oldest = outboxEventRepository.findOldestPendingCreatedAt();
+                    oldestPendingMillis.set(shard, oldest != null ? oldest.toEpochMilli() : NO_PENDING_EVENT);
+                } catch (RuntimeException e) {
+                    // Keep the last known oldest event, so the lag keeps growing
+                    log.warn("Outbox lag could not be read on shard {}: {}", shard, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the age of the oldest pending event over all shards, in milliseconds
+     */
+    public long getLagMillis() {
+        long oldest = NO_PENDING_EVENT;
+        for (int shard = 0; shard < oldestPendingMillis.length(); shard++) {
+            oldest = Math.min(oldest, oldestPendingMillis.get(shard));
+        }
+        return oldest == NO_PENDING_EVENT ? 0 : Math.max(0, System.currentTimeMillis() - oldest);
+    }
+
+    /**
+     * Removes published events older than the retention period.
+     */
+    @Scheduled(fixedDelayString = "${outbox.cleanup-interval:PT1H}")
+    public void purgePublished() {
+        Instant before = Instant.now().minus(retention);
+        for (int shard = 0; shard < userShardRouter.getShardCount(); shard++) {
+            int removed = ShardContext.callOn(shard, () -> outboxEventRepository.deletePublishedBefore(before));
+            if (removed > 0) {
+                log.info("Removed {} published outbox events from shard {}", removed, shard);
+            }
+        }
+    }
+
+    private void dispatchShard(int shard) {
+        for (int batch = 0; batch < maxBatchesPerPoll; batch++) {
+            List<OutboxEvent> events = claimBatch();
+            if (events.isEmpty()) {
+                return;
+            }
+            batchTimer.record(() -> publishBatch(shard, events));
+            if (events.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private List<OutboxEvent> claimBatch() {
+        Instant now = Instant.now();
+        List<Long> ids = outboxEventRepository.findClaimableIds(now, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        if (outboxEventRepository.claim(ids, owner, now, now.plus(leaseDuration)) == 0) {
+            return List.of();
+        }
+        return outboxEventRepository.findByLeaseOwnerAndPublishedAtIsNullAndLeaseExpiresAtAfterOrderByIdAsc(owner, now);
+    }
+
+    private void publishBatch(int shard, List<OutboxEvent> events) {
+        List<OutboxMessage> messages = events.stream()
+                .map(event -> new OutboxMessage(event.getId(), shard, event.getAggregateId(),
+                        event.getEventType(), event.getPayload(), event.getCreatedAt()))
+                .toList();
+        List<Long> ids = events.stream().map(OutboxEvent::getId).toList();
+        try {
+            outboxSink.publish(messages);
+        } catch (RuntimeException e) {
+            log.warn("Publishing {} outbox events from shard {} failed: {}", events.size(), shard, e.getMessage());
+            Instant now = Instant.now();
+            for (OutboxEvent event : events) {
+                outboxEventRepository.markFailed(event.getId(), owner, now.plus(backoff(event.getAttempts())));
+            }
+            failedCounter.increment(events.size());
+            return;
+        }
+        outboxEventRepository.markPublished(ids, owner, Instant.now());
+        publishedCounter.increment(events.size());
+    }
+
+    private static Duration backoff(int attempts) {
+        Duration delay = Duration.ofSeconds(1L << Math.min(attempts, 16));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+}
@@ -0,0 +1,17 @@
+package com.spring.userservice.outbox;
+
+import java.time.Instant;
+
+/**
+ * Event handed to an {@link OutboxSink}. Delivery is at-least-once, so
+ * consumers should deduplicate on the id.
+ *
+ * @param id the outbox event id, unique per shard
+ * @param shard the shard the event was written on
+ * @param aggregateId the id of the user the event belongs to
+ * @param eventType the event type, e.g. USER_REGISTERED
+ * @param payload the JSON payload
+ * @param createdAt the time the event was written
+ */
+public record OutboxMessage(Long id, int shard, Long aggregateId, String eventType, String payload, Instant createdAt) {
+}
@@ -0,0 +1,20 @@
+package com.spring.userservice.outbox;
+
+import java.util.List;
+
+/**
+ * Destination the outbox dispatcher publishes events to.
+ * <p>
+ * A batch is either fully accepted or, if this method throws, retried as a
+ * whole later. Messages of the same user are handed over in creation order.
+ */
+public interface OutboxSink {
+
+    /**
+     * Publishes a batch of events.
+     *
+     * @param messages the events, ordered by id
+     * @throws RuntimeException if the batch could not be published
+     */
+    void publish(List<OutboxMessage> messages);
+}
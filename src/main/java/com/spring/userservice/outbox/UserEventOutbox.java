@@ -0,0 +1,66 @@
+package com.spring.userservice.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.userservice.entity.OutboxEvent;
+import com.spring.userservice.entity.User;
+import com.spring.userservice.repository.OutboxEventRepository;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Writes user lifecycle events to the outbox.
+ * <p>
+ * Must be called inside the transaction that changes the user, so that the
+ * event is committed if and only if the change is.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserEventOutbox {
+
+    public static final String USER_REGISTERED = "USER_REGISTERED";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Payload of a USER_REGISTERED event.
+     */
+    record UserRegistered(Long userId, String email, String role, Instant occurredAt) {
+    }
+
+    /**
+     * Records that a user has been registered.
+     *
+     * @param user the newly saved user
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void userRegistered(User user) {
+        Instant now = Instant.now();
+        UserRegistered payload = new UserRegistered(
+                user.getId(),
+                user.getEmail(),
+                user.getRole() != null ? user.getRole().name() : null,
+                now);
+        outboxEventRepository.save(OutboxEvent.builder()
+                .aggregateId(user.getId())
+                .eventType(USER_REGISTERED)
+                .payload(toJson(payload))
+                .createdAt(now)
+                .build());
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox payload", e);
+        }
+    }
+}
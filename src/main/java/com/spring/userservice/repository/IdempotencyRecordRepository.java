@@ -0,0 +1,45 @@
+package com.spring.userservice.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.spring.userservice.entity.IdempotencyRecord;
+
+import java.time.Instant;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyRecord r set r.userEmail = :userEmail "
+            + "where r.idempotencyKey = :key and r.userEmail is null and r.reservedAt = :reservedAt")
+    int complete(@Param("key") String key, @Param("reservedAt") Instant reservedAt, @Param("userEmail") String userEmail);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r "
+            + "where r.idempotencyKey = :key and r.userEmail is null and r.reservedAt = :reservedAt")
+    int release(@Param("key") String key, @Param("reservedAt") Instant reservedAt);
+
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyRecord r set r.requestHash = :requestHash, r.userEmail = null, "
+            + "r.createdAt = :now, r.reservedAt = :now, r.expiresAt = :expiresAt "
+            + "where r.idempotencyKey = :key and (r.expiresAt <= :now "
+            + "or (r.userEmail is null and r.reservedAt < :staleBefore and r.requestHash = :requestHash))")
+    int takeOver(@Param("key") String key,
+                 @Param("requestHash") String requestHash,
+                 @Param("now") Instant now,
+                 @Param("staleBefore") Instant staleBefore,
+                 @Param("expiresAt") Instant expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,61 @@
+package com.spring.userservice.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.spring.userservice.entity.OutboxEvent;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Finds pending, unleased events that are the oldest pending event of their
+     * aggregate, so that at most one event per user is ever in flight.
+     */
+    @Query("select e.id from OutboxEvent e"
+            + " where e.publishedAt is null"
+            + " and (e.leaseExpiresAt is null or e.leaseExpiresAt < :now)"
+            + " and not exists (select p.id from OutboxEvent p"
+            + " where p.aggregateId = e.aggregateId and p.publishedAt is null and p.id < e.id)"
+            + " order by e.id")
+    List<Long> findClaimableIds(@Param("now") Instant now, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.leaseOwner = :owner, e.leaseExpiresAt = :leaseExpiresAt"
+            + " where e.id in :ids and e.publishedAt is null"
+            + " and (e.leaseExpiresAt is null or e.leaseExpiresAt < :now)")
+    int claim(@Param("ids") Collection<Long> ids, @Param("owner") String owner,
+              @Param("now") Instant now, @Param("leaseExpiresAt") Instant leaseExpiresAt);
+
+    List<OutboxEvent> findByLeaseOwnerAndPublishedAtIsNullAndLeaseExpiresAtAfterOrderByIdAsc(String leaseOwner, Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.publishedAt = :now, e.leaseOwner = null, e.leaseExpiresAt = null"
+            + " where e.id in :ids and e.leaseOwner = :owner")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("owner") String owner, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.attempts = e.attempts + 1, e.leaseOwner = null, e.leaseExpiresAt = :retryAt"
+            + " where e.id = :id and e.leaseOwner = :owner")
+    int markFailed(@Param("id") Long id, @Param("owner") String owner, @Param("retryAt") Instant retryAt);
+
+    @Query("select min(e.createdAt) from OutboxEvent e where e.publishedAt is null")
+    Instant findOldestPendingCreatedAt();
+
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxEvent e where e.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") Instant before);
+}
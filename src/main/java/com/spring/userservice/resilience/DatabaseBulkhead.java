@@ -0,0 +1,100 @@
+package com.spring.userservice.resilience;
+
+import com.spring.userservice.exception.ServiceUnavailableException;
+import com.spring.userservice.shard.ShardContext;
+import com.spring.userservice.shard.UserShardRouter;
+
+import io.micrometer.core.instrument.Counter;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Concurrency limit and query timeout for the database work of one request path.
+ * <p>
+ * A permit is held only for the duration of one transaction on the user's
+ * shard, so work done around it, such as password hashing, never counts
+ * against the limit. A caller that cannot get a permit within the configured
+ * wait fails fast with a {@link ServiceUnavailableException}, so a slow
+ * database can only tie up as many request threads as the path has permits.
+ * Connection timeouts, query timeouts and lost connections are reported to
+ * {@link DatabaseHealth} and surfaced as {@link ServiceUnavailableException}
+ * as well.
+ */
+public class DatabaseBulkhead {
+
+    private static final String UNAVAILABLE_MESSAGE = "Service Unavailable: the user database is not responding, retry later.";
+
+    private final String name;
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+    private final TransactionTemplate transactionTemplate;
+    private final UserShardRouter userShardRouter;
+    private final DatabaseHealth databaseHealth;
+    private final Counter rejectedCounter;
+
+    DatabaseBulkhead(String name, int maxConcurrent, long maxWaitNanos, TransactionTemplate transactionTemplate,
+                     UserShardRouter userShardRouter, DatabaseHealth databaseHealth, Counter rejectedCounter) {
+        this.name = name;
+        this.permits = new Semaphore(maxConcurrent);
+        this.maxWaitNanos = maxWaitNanos;
+        this.transactionTemplate = transactionTemplate;
+        this.userShardRouter = userShardRouter;
+        this.databaseHealth = databaseHealth;
+        this.rejectedCounter = rejectedCounter;
+    }
+
+    /**
+     * Runs the work in one transaction on the given user's shard while holding
+     * a permit of this bulkhead.
+     *
+     * @param <T> Return type of the work
+     * @param email the email of the user the work is about
+     * @param work the repository calls to run
+     * @return the work's result
+     * @throws ServiceUnavailableException if no permit became available in time
+     *         or the database did not answer in time
+     */
+    public <T> T call(String email, Supplier<T> work) {
+        if (!tryAcquire()) {
+            rejectedCounter.increment();
+            throw new ServiceUnavailableException("Service Unavailable: " + name + " capacity exhausted, retry later.");
+        }
+        T result;
+        try {
+            // The shard must be selected before the transaction takes its connection
+            result = ShardContext.callOn(userShardRouter.shardForEmail(email),
+                () -> transactionTemplate.execute(status -> work.get()));
+        } catch (TransientDataAccessException | DataAccessResourceFailureException | TransactionException e) {
+            databaseHealth.recordFailure();
+            throw new ServiceUnavailableException(UNAVAILABLE_MESSAGE);
+        } finally {
+            permits.release();
+        }
+        databaseHealth.recordSuccess();
+        return result;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    private boolean tryAcquire() {
+        try {
+            return permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.spring.userservice.resilience;
+
+import com.spring.userservice.shard.UserShardRouter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * Bulkheads for the database work done on the authentication paths.
+ * <p>
+ * The token filter's user lookup, login's user lookup and registration's
+ * writes each get their own {@link DatabaseBulkhead}, configured under
+ * 'bulkhead.filter-lookup', 'bulkhead.login' and 'bulkhead.registration'.
+ * Query timeouts are applied as transaction timeouts, which Hibernate passes
+ * on to every JDBC statement. The transaction timeout is the query timeout
+ * rounded up to whole seconds plus one, so a path may hold its connection
+ * for up to that long.
+ */
+@Component
+public class DatabaseBulkheads {
+
+    private final DatabaseBulkhead filterLookup;
+    private final DatabaseBulkhead login;
+    private final DatabaseBulkhead registration;
+
+    public DatabaseBulkheads(
+            Environment environment,
+            PlatformTransactionManager transactionManager,
+            UserShardRouter userShardRouter,
+            DatabaseHealth databaseHealth,
+            MeterRegistry meterRegistry) {
+        this.filterLookup = create("filter-lookup", 6, true, environment, transactionManager, userShardRouter, databaseHealth, meterRegistry);
+        this.login = create("login", 2, true, environment, transactionManager, userShardRouter, databaseHealth, meterRegistry);
+        this.registration = create("registration", 2, false, environment, transactionManager, userShardRouter, databaseHealth, meterRegistry);
+    }
+
+    public DatabaseBulkhead getFilterLookup() {
+        return filterLookup;
+    }
+
+    public DatabaseBulkhead getLogin() {
+        return login;
+    }
+
+    public DatabaseBulkhead getRegistration() {
+        return registration;
+    }
+
+    private static DatabaseBulkhead create(String name, int defaultMaxConcurrent, boolean readOnly, Environment environment,
+                                           PlatformTransactionManager transactionManager, UserShardRouter userShardRouter,
+                                           DatabaseHealth databaseHealth, MeterRegistry meterRegistry) {
+        String prefix = "bulkhead." + name + ".";
+        int maxConcurrent = environment.getProperty(prefix + "max-concurrent", Integer.class, defaultMaxConcurrent);
+        Duration maxWait = environment.getProperty(prefix + "max-wait", Duration.class, Duration.ofMillis(50));
+        Duration queryTimeout = environment.getProperty(prefix + "query-timeout", Duration.class, Duration.ofSeconds(2));
+
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        // Hibernate rounds the remaining time down to whole seconds before each
+        // statement, so a timeout of n seconds leaves statements n - 1; add one
+        template.setTimeout((int) Math.max(1, (queryTimeout.toMillis() + 999) / 1000) + 1);
+
+        DatabaseBulkhead bulkhead = new DatabaseBulkhead(name, maxConcurrent, maxWait.toNanos(), template,
+                userShardRouter, databaseHealth, meterRegistry.counter("db.bulkhead.rejected", "path", name));
+        Gauge.builder("db.bulkhead.available", bulkhead, DatabaseBulkhead::getAvailablePermits)
+                .tag("path", name)
+                .register(meterRegistry);
+        return bulkhead;
+    }
+}
@@ -0,0 +1,63 @@
+package com.spring.userservice.resilience;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks whether the database is currently usable, based on the outcome of
+ * the transactions run through {@link DatabaseBulkhead}.
+ * <p>
+ * The database is considered unhealthy after a number of consecutive
+ * failures. Once the probe interval has passed since the last failure, a
+ * single caller is let through as a probe while everyone else still sees
+ * the database as unhealthy; its success restores health, its failure
+ * starts a new interval. A probe that never reaches the database is
+ * replaced by another one after a further interval.
+ */
+@Component
+public class DatabaseHealth {
+
+    private final int failureThreshold;
+    private final long probeIntervalMillis;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong lastFailureMillis = new AtomicLong();
+    private final AtomicLong probeStartedMillis = new AtomicLong();
+
+    public DatabaseHealth(
+            @Value("${degraded-mode.failure-threshold:3}") int failureThreshold,
+            @Value("${degraded-mode.probe-interval:PT5S}") Duration probeInterval) {
+        this.failureThreshold = failureThreshold;
+        this.probeIntervalMillis = probeInterval.toMillis();
+    }
+
+    /**
+     * @return true if the caller may use the database, either because it is
+     *         healthy or because the caller has been chosen as the probe
+     */
+    public boolean isHealthy() {
+        if (consecutiveFailures.get() < failureThreshold) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastFailureMillis.get() < probeIntervalMillis) {
+            return false;
+        }
+        long probeStarted = probeStartedMillis.get();
+        return now - probeStarted >= probeIntervalMillis && probeStartedMillis.compareAndSet(probeStarted, now);
+    }
+
+    void recordSuccess() {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    void recordFailure() {
+        lastFailureMillis.set(System.currentTimeMillis());
+        consecutiveFailures.incrementAndGet();
+    }
+}
@@ -0,0 +1,61 @@
+package com.spring.userservice.resilience;
+
+import com.spring.userservice.config.TokenClaims;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+/**
+ * Optional degraded mode for the token filter, enabled with
+ * 'degraded-mode.enabled'.
+ * <p>
+ * While the database is unhealthy, requests with a verified token are
+ * authenticated from the token's subject and authorities claims instead of
+ * failing with a 503. Changes to a user's role or account since the token
+ * was issued are not seen until the database is back, which is why the mode
+ * is off by default.
+ */
+@Component
+public class DegradedAuthentication {
+
+    private final boolean enabled;
+    private final DatabaseHealth databaseHealth;
+    private final Counter degradedCounter;
+
+    public DegradedAuthentication(
+            @Value("${degraded-mode.enabled:false}") boolean enabled,
+            DatabaseHealth databaseHealth,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.databaseHealth = databaseHealth;
+        this.degradedCounter = meterRegistry.counter("auth.degraded.authentications");
+    }
+
+    /**
+     * @return true if requests should currently be authenticated from token claims
+     */
+    public boolean isActive() {
+        return enabled && !databaseHealth.isHealthy();
+    }
+
+    /**
+     * Builds the principal of a request from the claims of its verified token.
+     *
+     * @param claims the verified token claims
+     * @return UserDetails carrying the token's subject and authorities
+     */
+    public UserDetails fromClaims(TokenClaims claims) {
+        degradedCounter.increment();
+        String authorities = claims.authorities() != null ? claims.authorities() : "";
+        return User.withUsername(claims.subject())
+                .password("")
+                .authorities(AuthorityUtils.commaSeparatedStringToAuthorityList(authorities))
+                .build();
+    }
+}
@@ -6,16 +6,25 @@ import com.spring.userservice.dto.AuthenticationResponse;
 import com.spring.userservice.dto.RegisterRequest;
 import com.spring.userservice.entity.User;
 import com.spring.userservice.exception.CustomAuthenticationException;
+import com.spring.userservice.exception.ServiceUnavailableException;
+import com.spring.userservice.logging.SecurityEventLogger;
+import com.spring.userservice.logging.SecurityEventType;
+import com.spring.userservice.outbox.UserEventOutbox;
 import com.spring.userservice.repository.UserRepository;
+import com.spring.userservice.resilience.DatabaseBulkheads;
 
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.function.Consumer;
+
 /**
  * Service class for handling authentication and registration operations.
  * 
@@ -34,18 +43,50 @@ public class AuthService {
     private  final JwtService jwtService;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
+    private final SecurityEventLogger securityEventLogger;
+    private final UserEventOutbox userEventOutbox;
+    private final DatabaseBulkheads databaseBulkheads;
     
     /**
      * Registers a new user in the system.
      * 
      * This method takes a RegisterRequest, encodes the user's password, 
-     * and saves the user to the repository. After saving, it generates 
-     * a JWT token for the newly registered user.
+     * and saves the user to the repository together with a USER_REGISTERED 
+     * outbox event in one transaction on the user's shard. The password is 
+     * hashed before the transaction starts, so no connection is held during 
+     * hashing. After saving, it generates a JWT token for the newly registered user.
+     * Registration runs in its own bulkhead with its own query timeout.
      * 
      * @param registerRequest The user registration request containing user details.
      * @return An AuthenticationResponse with the JWT access token.
+     * @throws ServiceUnavailableException if registration is saturated or the database does not answer
      */
     public AuthenticationResponse register(RegisterRequest registerRequest) {
+        return createAuthenticationResponse(registerUser(registerRequest));
+    }
+
+    /**
+     * Registers a new user without issuing a token for it.
+     * 
+     * @param registerRequest The user registration request containing user details.
+     * @return The saved user.
+     * @throws ServiceUnavailableException if registration is saturated or the database does not answer
+     */
+    public User registerUser(RegisterRequest registerRequest) {
+        return registerUser(registerRequest, saved -> { });
+    }
+
+    /**
+     * Registers a new user without issuing a token for it.
+     * 
+     * @param registerRequest The user registration request containing user details.
+     * @param onSaved Callback invoked with the saved user inside the saving transaction;
+     *        an exception it throws rolls the registration back.
+     * @return The saved user.
+     * @throws ServiceUnavailableException if registration is saturated or the database does not answer
+     */
+    public User registerUser(RegisterRequest registerRequest, Consumer<User> onSaved) {
+        // Hash before taking a registration permit, which only covers the writes
         var user = User.builder()
             .firstName(registerRequest.getFirstName())
             .lastName(registerRequest.getLastName())
@@ -53,8 +94,12 @@ public class AuthService {
             .password(passwordEncoder.encode(registerRequest.getPassword()))
             .role(registerRequest.getRole())
             .build();
-        var savedUser = userRepository.save(user);
-        return createAuthenticationResponse(savedUser);
+        return databaseBulkheads.getRegistration().call(user.getEmail(), () -> {
+            User saved = userRepository.save(user);
+            userEventOutbox.userRegistered(saved);
+            onSaved.accept(saved);
+            return saved;
+        });
     }
     
     /**
@@ -63,41 +108,52 @@ public class AuthService {
      * This method takes an AuthenticationRequest, validates the provided 
      * credentials using the AuthenticationManager, and generates a JWT token 
      * if the user is authenticated successfully. If authentication fails, it 
-     * throws a BadCredentialsException.
+     * throws a BadCredentialsException. The user lookup runs in the login
+     * bulkhead while the password check does not, and the authenticated principal is the loaded user, so the user is read only once.
      * 
      * @param request The authentication request containing email and password.
      * @return An AuthenticationResponse with the JWT access token.
+     * @throws ServiceUnavailableException if login is saturated or the database does not answer
      */
     
     public AuthenticationResponse authenticate(AuthenticationRequest request) {
         try {
-            authenticationManager.authenticate(
+            Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                     request.getEmail(),
                     request.getPassword()
                 )
             );
 
-            var user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow();
+            var user = (User) authentication.getPrincipal();
 
+            securityEventLogger.log(SecurityEventType.AUTH_SUCCESS, user.getEmail(), null);
             return createAuthenticationResponse(user);
             
+        } catch (InternalAuthenticationServiceException e) {
+            // The provider wraps lookup failures; an unavailable database is not bad credentials
+            if (e.getCause() instanceof ServiceUnavailableException unavailable) {
+                throw unavailable;
+            }
+            securityEventLogger.log(SecurityEventType.AUTH_FAILURE, request.getEmail(), "bad_credentials");
+            throw new CustomAuthenticationException("Invalid username or password");
         } catch (AuthenticationException e) {
+            securityEventLogger.log(SecurityEventType.AUTH_FAILURE, request.getEmail(), "bad_credentials");
         	   throw new CustomAuthenticationException("Invalid username or password"); 
         }
     }
     
     /**
-     * Helper method to create an AuthenticationResponse containing a JWT token.
+     * Creates an AuthenticationResponse containing a freshly issued JWT token.
      * 
      * This method generates a JWT token for a given user and returns 
-     * an AuthenticationResponse containing the token.
+     * an AuthenticationResponse containing the token. Signing needs no
+     * database access, so it is also used to answer idempotent replays.
      * 
      * @param user The user for whom the token is generated.
      * @return An AuthenticationResponse with the JWT access token.
      */
-    private AuthenticationResponse createAuthenticationResponse(User user) {
+    public AuthenticationResponse createAuthenticationResponse(User user) {
         String jwtToken = jwtService.generateToken(user);
         return AuthenticationResponse.builder().accessToken(jwtToken).build();
     }
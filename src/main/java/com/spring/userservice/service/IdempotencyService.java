@@ -0,0 +1,304 @@
+package com.spring.userservice.service;
+
+import com.spring.userservice.entity.IdempotencyRecord;
+import com.spring.userservice.entity.User;
+import com.spring.userservice.exception.IdempotencyConflictException;
+import com.spring.userservice.exception.ServiceUnavailableException;
+import com.spring.userservice.repository.IdempotencyRecordRepository;
+import com.spring.userservice.repository.UserRepository;
+import com.spring.userservice.resilience.DatabaseBulkhead;
+import com.spring.userservice.resilience.DatabaseBulkheads;
+import com.spring.userservice.shard.ShardContext;
+import com.spring.userservice.shard.UserShardRouter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Service class for executing registrations under an Idempotency-Key.
+ * 
+ * Completed registrations are kept in a short-lived in-memory map for cheap
+ * replays on the node that served the original request, and in the
+ * 'idempotency_key' table so that a retry landing on another node is
+ * replayed as well. Only the registered user's email is stored; a replay
+ * loads that user and the caller issues a fresh token, so no bearer token
+ * is ever persisted. A key is reserved in the database before the request
+ * is executed, so two concurrent attempts with the same key can never both
+ * run. A reservation that is not completed within the reservation timeout,
+ * because the node serving it died or stalled, can be taken over by a retry
+ * of the same request, and an expired record is treated as absent.
+ * 
+ * The key is completed in the same transaction that saves the user, and
+ * only while the attempt still holds its reservation, identified by its
+ * reservation time. An attempt whose reservation was taken over therefore
+ * rolls its user back instead of creating a second account. Records live on
+ * the shard of the registering user's email so that this transaction never
+ * spans shards; with sharding enabled, reusing a key for a different email
+ * is therefore not detected as a conflict.
+ * 
+ * All database work of a keyed registration, including reserving, taking
+ * over and releasing the key and loading the user for a replay, runs in the
+ * registration bulkhead, so it is bounded by the same concurrency limit and
+ * query timeout as the registration itself and fails with a 503 when the
+ * database is saturated or down. The key is only reserved once a permit has
+ * been obtained, so a shed registration writes nothing.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 128;
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String FINGERPRINT_KEY_LABEL = "user-service idempotency fingerprint";
+    private static final String IN_FLIGHT_MESSAGE = "Idempotency-Key is being processed";
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final UserRepository userRepository;
+    private final UserShardRouter userShardRouter;
+    private final DatabaseBulkhead registrationBulkhead;
+    private final Duration ttl;
+    private final Duration reservationTimeout;
+    private final int maxCachedEntries;
+    private final SecretKeySpec fingerprintKey;
+    private final Map<String, CachedResult> cache = new ConcurrentHashMap<>();
+
+    public IdempotencyService(
+            IdempotencyRecordRepository idempotencyRecordRepository,
+            UserRepository userRepository,
+            UserShardRouter userShardRouter,
+            DatabaseBulkheads databaseBulkheads,
+            @Value("${idempotency.ttl:PT24H}") Duration ttl,
+            @Value("${idempotency.reservation-timeout:PT30S}") Duration reservationTimeout,
+            @Value("${idempotency.max-cached-entries:10000}") int maxCachedEntries,
+            @Value("${idempotency.fingerprint-secret:}") String fingerprintSecret,
+            @Value("${jwt.secret}") String jwtSecret) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.userRepository = userRepository;
+        this.userShardRouter = userShardRouter;
+        this.registrationBulkhead = databaseBulkheads.getRegistration();
+        this.ttl = ttl;
+        this.reservationTimeout = reservationTimeout;
+        this.maxCachedEntries = maxCachedEntries;
+        this.fingerprintKey = fingerprintSecret.isEmpty()
+                ? deriveFingerprintKey(jwtSecret)
+                : new SecretKeySpec(fingerprintSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+    }
+
+    /**
+     * Result of an idempotent execution.
+     *
+     * @param user the user registered by the original execution
+     * @param replayed true if the result was replayed rather than freshly produced
+     */
+    public record Result(User user, boolean replayed) {
+    }
+
+    /**
+     * A registration run under a key.
+     */
+    @FunctionalInterface
+    public interface Registration {
+
+        /**
+         * Registers the user.
+         *
+         * @param onSaved callback to invoke with the saved user inside the
+         *        transaction that saves it; it throws if the key was lost,
+         *        which must roll the registration back
+         * @return the saved user
+         */
+        User register(Consumer<User> onSaved);
+    }
+
+    /**
+     * Executes the registration once per key, replaying the original result on retries.
+     *
+     * @param key the client supplied Idempotency-Key
+     * @param requestHash fingerprint of the request, see {@link #fingerprint(String...)}
+     * @param email the email being registered, which selects the shard holding the key
+     * @param registration the registration to run
+     * @return the registered user together with whether it was replayed
+     * @throws IdempotencyConflictException if the key is in flight or was used for a different request
+     * @throws ServiceUnavailableException if registration is saturated or the database does not answer
+     */
+    public Result execute(String key, String requestHash, String email, Registration registration) {
+        // Stored reservation times are compared for equality, so keep them at a precision every database holds
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+        CachedResult cached = cache.get(key);
+        if (cached != null && cached.expiresAt().isAfter(now)) {
+            return replay(cached.requestHash(), cached.userEmail(), requestHash);
+        }
+
+        if (!reserve(email, key, requestHash, now)) {
+            IdempotencyRecord existing = registrationBulkhead.call(email, () -> idempotencyRecordRepository.findById(key))
+                    .orElseThrow(() -> new IdempotencyConflictException(IN_FLIGHT_MESSAGE));
+            if (existing.isExpired(now)) {
+                takeOver(email, key, requestHash, now);
+            } else if (existing.isCompleted()) {
+                remember(key, existing.getRequestHash(), existing.getUserEmail(), existing.getExpiresAt());
+                return replay(existing.getRequestHash(), existing.getUserEmail(), requestHash);
+            } else if (existing.getReservedAt() != null && existing.getReservedAt().isBefore(now.minus(reservationTimeout))) {
+                // The attempt holding the reservation died or stalled before completing it
+                checkSameRequest(existing.getRequestHash(), requestHash);
+                takeOver(email, key, requestHash, now);
+            } else {
+                throw new IdempotencyConflictException(IN_FLIGHT_MESSAGE);
+            }
+        }
+
+        User user;
+        try {
+            user = registration.register(saved -> complete(key, now, saved.getEmail()));
+        } catch (RuntimeException e) {
+            release(email, key, now, e);
+            throw e;
+        }
+        remember(key, requestHash, user.getEmail(), now.plus(ttl));
+        return new Result(user, false);
+    }
+
+    /**
+     * Computes a stable fingerprint of the identifying parts of a request.
+     * <p>
+     * The fingerprint is an HMAC keyed with a server secret, so parts may
+     * include the password: the stored value cannot be used to guess it
+     * without the key, and a retry with a different password does not match.
+     *
+     * @param parts the request fields to include
+     * @return hex encoded HMAC-SHA256 of the parts
+     */
+    public String fingerprint(String... parts) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(fingerprintKey);
+            for (String part : parts) {
+                if (part != null) {
+                    mac.update(part.getBytes(StandardCharsets.UTF_8));
+                }
+                mac.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(mac.doFinal());
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    /**
+     * Periodically drops expired keys from the in-memory map and the database.
+     */
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval:PT1M}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        cache.values().removeIf(entry -> !entry.expiresAt().isAfter(now));
+        for (int shard = 0; shard < userShardRouter.getShardCount(); shard++) {
+            ShardContext.callOn(shard, () -> idempotencyRecordRepository.deleteExpired(now));
+        }
+    }
+
+    private boolean reserve(String email, String key, String requestHash, Instant now) {
+        try {
+            registrationBulkhead.call(email, () -> idempotencyRecordRepository.saveAndFlush(IdempotencyRecord.builder()
+                    .idempotencyKey(key)
+                    .requestHash(requestHash)
+                    .createdAt(now)
+                    .reservedAt(now)
+                    .expiresAt(now.plus(ttl))
+                    .build()));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Re-reserves an expired record or a lapsed reservation. The update only
+     * matches while the record is still in that state, so of several
+     * concurrent retries exactly one takes the key over.
+     */
+    private void takeOver(String email, String key, String requestHash, Instant now) {
+        int updated = registrationBulkhead.call(email, () -> idempotencyRecordRepository.takeOver(
+                key, requestHash, now, now.minus(reservationTimeout), now.plus(ttl)));
+        if (updated == 0) {
+            throw new IdempotencyConflictException(IN_FLIGHT_MESSAGE);
+        }
+    }
+
+    /**
+     * Completes the key inside the registration's transaction, which already
+     * runs on the key's shard. Fails if another attempt has taken the
+     * reservation over, so that this attempt's user is rolled back.
+     */
+    private void complete(String key, Instant reservedAt, String userEmail) {
+        if (idempotencyRecordRepository.complete(key, reservedAt, userEmail) == 0) {
+            throw new IdempotencyConflictException(IN_FLIGHT_MESSAGE);
+        }
+    }
+
+    /**
+     * Releases the key after a failed registration so that the client can
+     * retry, unless another attempt holds it by now. A failure to release,
+     * typically because the database is down, must not mask the original
+     * failure; the reservation then lapses after the reservation timeout.
+     */
+    private void release(String email, String key, Instant reservedAt, RuntimeException failure) {
+        try {
+            registrationBulkhead.call(email, () -> idempotencyRecordRepository.release(key, reservedAt));
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Derives the fingerprint key from the token signing secret, so that
+     * without a dedicated secret the signing key itself is never used for a
+     * second purpose.
+     */
+    private static SecretKeySpec deriveFingerprintKey(String jwtSecret) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            return new SecretKeySpec(mac.doFinal(FINGERPRINT_KEY_LABEL.getBytes(StandardCharsets.UTF_8)), HMAC_ALGORITHM);
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private Result replay(String storedHash, String userEmail, String requestHash) {
+        checkSameRequest(storedHash, requestHash);
+        User user = registrationBulkhead.call(userEmail, () -> userRepository.findByEmail(userEmail))
+                .orElseThrow(() -> new IdempotencyConflictException("Idempotency-Key refers to a user that no longer exists"));
+        return new Result(user, true);
+    }
+
+    private static void checkSameRequest(String storedHash, String requestHash) {
+        if (!MessageDigest.isEqual(storedHash.getBytes(StandardCharsets.US_ASCII), requestHash.getBytes(StandardCharsets.US_ASCII))) {
+            throw new IdempotencyConflictException("Idempotency-Key was already used for a different request");
+        }
+    }
+
+    private void remember(String key, String requestHash, String userEmail, Instant expiresAt) {
+        if (cache.size() < maxCachedEntries) {
+            cache.put(key, new CachedResult(requestHash, userEmail, expiresAt));
+        }
+    }
+
+    private record CachedResult(String requestHash, String userEmail, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,113 @@
+package com.spring.userservice.service;
+
+import com.spring.userservice.entity.User;
+import com.spring.userservice.repository.UserRepository;
+import com.spring.userservice.shard.ShardContext;
+import com.spring.userservice.shard.UserShardRouter;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Service class for reads spanning all users.
+ * 
+ * Each shard is read in pages ordered by id, and the per-shard pages are
+ * merged lazily into a single stream ordered by id. Only one page per shard
+ * is held in memory at any time. With sharding disabled this is a plain
+ * paged scan of the single database.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserDirectory {
+
+    private static final int PAGE_SIZE = 500;
+
+    private final UserRepository userRepository;
+    private final UserShardRouter userShardRouter;
+
+    /**
+     * Streams all users across all shards in ascending id order.
+     * 
+     * @return a lazily populated stream of users
+     */
+    public Stream<User> streamAll() {
+        PriorityQueue<ShardCursor> cursors = new PriorityQueue<>(Comparator.comparing(ShardCursor::peekId));
+        for (int shard = 0; shard < userShardRouter.getShardCount(); shard++) {
+            ShardCursor cursor = new ShardCursor(shard);
+            if (cursor.hasNext()) {
+                cursors.add(cursor);
+            }
+        }
+
+        Iterator<User> merged = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !cursors.isEmpty();
+            }
+
+            @Override
+            public User next() {
+                ShardCursor cursor = cursors.poll();
+                if (cursor == null) {
+                    throw new NoSuchElementException();
+                }
+                User user = cursor.next();
+                if (cursor.hasNext()) {
+                    cursors.add(cursor);
+                }
+                return user;
+            }
+        };
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Keyset-paged cursor over the users of one shard.
+     */
+    private final class ShardCursor {
+
+        private final int shard;
+        private final Deque<User> page = new ArrayDeque<>();
+        private long lastId = Long.MIN_VALUE;
+        private boolean exhausted;
+
+        ShardCursor(int shard) {
+            this.shard = shard;
+        }
+
+        boolean hasNext() {
+            if (page.isEmpty() && !exhausted) {
+                List<User> users = ShardContext.callOn(shard,
+                        () -> userRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, PAGE_SIZE)));
+                page.addAll(users);
+                exhausted = users.size() < PAGE_SIZE;
+            }
+            return !page.isEmpty();
+        }
+
+        Long peekId() {
+            return page.getFirst().getId();
+        }
+
+        User next() {
+            User user = page.removeFirst();
+            lastId = user.getId();
+            return user;
+        }
+    }
+}
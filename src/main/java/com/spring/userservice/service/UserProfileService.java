@@ -0,0 +1,103 @@
+package com.spring.userservice.service;
+
+import com.spring.userservice.dto.UserProfile;
+import com.spring.userservice.entity.User;
+import com.spring.userservice.exception.ServiceUnavailableException;
+import com.spring.userservice.repository.UserRepository;
+import com.spring.userservice.resilience.DatabaseBulkheads;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Service class for reading the current user's profile.
+ * 
+ * The profile is built from the user entity that authenticated the request,
+ * which the token filter has already loaded or taken from its short-lived
+ * cache, so reading it needs no further query. Only requests authenticated
+ * from token claims alone, in degraded mode, load the user here, through the
+ * filter-lookup bulkhead so that a struggling database answers with a 503
+ * rather than tying up the request thread.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserProfileService {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final UserRepository userRepository;
+    private final DatabaseBulkheads databaseBulkheads;
+
+    /**
+     * Builds the profile of an authenticated principal.
+     * 
+     * @param principal the authenticated principal
+     * @return the profile, or empty if the user does not exist
+     * @throws ServiceUnavailableException if the user has to be loaded and
+     *         the database is unavailable
+     */
+    public Optional<UserProfile> profileOf(UserDetails principal) {
+        if (principal instanceof User user) {
+            return Optional.of(toProfile(user));
+        }
+        return load(principal.getUsername());
+    }
+
+    /**
+     * Loads the user's full profile.
+     * 
+     * @param email the user's email
+     * @return the profile, or empty if the user does not exist
+     * @throws ServiceUnavailableException if the database is unavailable
+     */
+    public Optional<UserProfile> load(String email) {
+        return databaseBulkheads.getFilterLookup()
+                .call(email, () -> userRepository.findByEmail(email))
+                .map(UserProfileService::toProfile);
+    }
+
+    /**
+     * Builds the strong ETag of a profile from its id and a hash of every
+     * profile field, so role and permission changes made in SQL or by
+     * changing the Role and Permission enums are seen too. The id is included
+     * so that a client switching accounts never matches another user's ETag.
+     */
+    public static String etag(UserProfile profile) {
+        String content = String.join("\n",
+                String.valueOf(profile.getFirstName()),
+                String.valueOf(profile.getLastName()),
+                String.valueOf(profile.getEmail()),
+                profile.getRole() != null ? profile.getRole().name() : "",
+                String.join(",", profile.getPermissions()));
+        return "\"" + profile.getId() + "-" + Long.toHexString(hash(content)) + "\"";
+    }
+
+    /**
+     * 64-bit FNV-1a hash, stable across nodes and restarts.
+     */
+    private static long hash(String content) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < content.length(); i++) {
+            hash ^= content.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static UserProfile toProfile(User user) {
+        return UserProfile.builder()
+                .id(user.getId())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .email(user.getEmail())
+                .role(user.getRole())
+                .permissions(user.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList())
+                .build();
+    }
+}
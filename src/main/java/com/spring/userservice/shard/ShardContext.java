@@ -0,0 +1,75 @@
+package com.spring.userservice.shard;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the user shard that database access on the current thread is routed to.
+ * <p>
+ * The shard must be selected before a transaction starts, because the
+ * connection is obtained from {@link ShardRoutingDataSource} when the
+ * transaction begins. Without a selected shard, access goes to shard 0,
+ * which also holds the tables that are not sharded.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * Returns the shard selected for the current thread.
+     *
+     * @return the shard index, or null if none is selected
+     */
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Selects a shard until the returned scope is closed.
+     *
+     * @param shard the shard index
+     * @return a scope restoring the previous selection on close
+     */
+    public static Scope enter(int shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return new Scope(previous);
+    }
+
+    /**
+     * Runs the supplier with the given shard selected.
+     *
+     * @param <T> Return type of the supplier
+     * @param shard the shard index
+     * @param supplier the work to run
+     * @return the supplier's result
+     */
+    public static <T> T callOn(int shard, Supplier<T> supplier) {
+        try (Scope ignored = enter(shard)) {
+            return supplier.get();
+        }
+    }
+
+    /**
+     * Restores the previously selected shard when closed.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final Integer previous;
+
+        private Scope(Integer previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.spring.userservice.shard;
+
+import com.spring.userservice.entity.User;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Routes UserRepository calls to the shard owning the user they address.
+ * <p>
+ * Calls taking an email, a user or a user id are routed to exactly one
+ * shard. Calls made while a shard is already selected, such as the per-shard
+ * queries of {@link com.spring.userservice.service.UserDirectory}, run on
+ * that shard unchanged. Anything else cannot be answered by a single shard
+ * and is rejected rather than silently querying shard 0 only.
+ */
+public class ShardRoutingInterceptor implements MethodInterceptor {
+
+    private final UserShardRouter userShardRouter;
+
+    public ShardRoutingInterceptor(UserShardRouter userShardRouter) {
+        this.userShardRouter = userShardRouter;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (ShardContext.current() != null) {
+            return invocation.proceed();
+        }
+        int shard = resolveShard(invocation);
+        try (ShardContext.Scope ignored = ShardContext.enter(shard)) {
+            return invocation.proceed();
+        }
+    }
+
+    private int resolveShard(MethodInvocation invocation) {
+        String name = invocation.getMethod().getName();
+        Object[] args = invocation.getArguments();
+        if (args.length > 0) {
+            Object first = args[0];
+            if (first instanceof User user) {
+                return userShardRouter.shardForEmail(user.getEmail());
+            }
+            if (first instanceof String email && name.endsWith("ByEmail")) {
+                return userShardRouter.shardForEmail(email);
+            }
+            if (first instanceof Long id && name.endsWith("ById")) {
+                return userShardRouter.shardForId(id);
+            }
+        }
+        throw new UnsupportedOperationException(
+                "UserRepository." + name + " cannot be routed to a single shard; use UserDirectory for cross-shard reads");
+    }
+}
@@ -0,0 +1,126 @@
+package com.spring.userservice.shard;
+
+import com.spring.userservice.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configures hash-sharded user storage when 'user.sharding.enabled' is true.
+ * <p>
+ * Every URL in 'user.sharding.urls' becomes a pooled shard DataSource behind
+ * a single routing DataSource, so JPA and all repositories keep working
+ * unchanged. The shard pools report the usual 'hikaricp' metrics under their
+ * 'user-shard-N' pool names and are closed with the routing DataSource. UserRepository is wrapped with {@link ShardRoutingInterceptor}
+ * so that each call is sent to the shard owning its user. Hibernate schema
+ * generation only ever sees shard 0, so it is switched off and every shard is
+ * initialized from 'db/shard-schema.sql' instead. User ids switch from the
+ * database sequence to {@link UserIdGenerator}'s distributed ids, which needs
+ * an explicit, per-instance 'user.id.node-id'.
+ * <p>
+ * Open-in-view must be switched off: Hibernate holds the first connection an
+ * EntityManager acquires, so a request-scoped EntityManager would keep reading
+ * and writing whichever shard the request touched first.
+ */
+@Configuration
+@ConditionalOnProperty(name = "user.sharding.enabled", havingValue = "true")
+public class ShardingConfiguration {
+
+    private static final String SHARD_SCHEMA = "db/shard-schema.sql";
+
+    @Bean
+    @Primary
+    DataSource dataSource(
+            @Value("${user.sharding.urls}") List<String> urls,
+            @Value("${user.sharding.username:}") String username,
+            @Value("${user.sharding.password:}") String password,
+            @Value("${user.sharding.driver-class-name:}") String driverClassName,
+            @Value("${user.sharding.maximum-pool-size:14}") int maximumPoolSize,
+            @Value("${user.sharding.connection-timeout:PT2S}") Duration connectionTimeout,
+            @Value("${spring.jpa.open-in-view:true}") boolean openInView,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        if (openInView) {
+            throw new IllegalStateException("spring.jpa.open-in-view must be false when user.sharding.enabled is true");
+        }
+        Map<Object, Object> shards = new HashMap<>();
+        for (int shard = 0; shard < urls.size(); shard++) {
+            DataSourceBuilder<HikariDataSource> builder = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(shard).trim())
+                    .username(username)
+                    .password(password);
+            if (!driverClassName.isEmpty()) {
+                builder.driverClassName(driverClassName);
+            }
+            HikariDataSource shardDataSource = builder.build();
+            shardDataSource.setPoolName("user-shard-" + shard);
+            shardDataSource.setMaximumPoolSize(maximumPoolSize);
+            shardDataSource.setConnectionTimeout(connectionTimeout.toMillis());
+            meterRegistry.ifAvailable(registry ->
+                    shardDataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource(SHARD_SCHEMA)), shardDataSource);
+            shards.put(shard, shardDataSource);
+        }
+
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource();
+        routingDataSource.setTargetDataSources(shards);
+        routingDataSource.setDefaultTargetDataSource(shards.get(0));
+        routingDataSource.setLenientFallback(false);
+        return routingDataSource;
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer shardSchemaManagementCustomizer() {
+        return properties -> properties.put("hibernate.hbm2ddl.auto", "none");
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer distributedUserIdCustomizer(@Value("${user.id.node-id:#{null}}") Integer nodeId) {
+        // A defaulted node id would let two instances generate the same ids
+        if (nodeId == null) {
+            throw new IllegalStateException("user.id.node-id must be set explicitly when user.sharding.enabled is true");
+        }
+        return properties -> {
+            properties.put(UserIdGenerator.DISTRIBUTED_SETTING, true);
+            properties.put(UserIdGenerator.NODE_ID_SETTING, nodeId);
+        };
+    }
+
+    @Bean
+    static BeanPostProcessor userRepositoryShardRouting(ObjectProvider<UserShardRouter> userShardRouter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof UserRepository)) {
+                    return bean;
+                }
+                ProxyFactory proxyFactory = new ProxyFactory();
+                proxyFactory.setTarget(bean);
+                proxyFactory.addInterface(UserRepository.class);
+                proxyFactory.addAdvice(new ShardRoutingInterceptor(userShardRouter.getObject()));
+                return proxyFactory.getProxy(bean.getClass().getClassLoader());
+            }
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package com.spring.userservice.shard;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.id.IdentityGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates user ids: database identity values on a single database, and
+ * globally unique 64-bit ids without a central sequence when sharded.
+ * <p>
+ * Distributed ids are only used when the Hibernate setting 'user.id.distributed'
+ * is true, which {@link ShardingConfiguration} sets; otherwise ids keep coming
+ * from the existing auto-increment column. Distributed layout, from the most
+ * significant bit: 41 bits of milliseconds since 2024-01-01T00:00:00Z, 5 bits
+ * of shard, 7 bits of node and a 10 bit per-millisecond sequence. The shard is
+ * taken from {@link ShardContext}, the node from the Hibernate setting
+ * 'user.id.node-id', which must be unique per application instance.
+ */
+public class UserIdGenerator extends IdentityGenerator implements BeforeExecutionGenerator {
+
+    public static final String DISTRIBUTED_SETTING = "user.id.distributed";
+    public static final String NODE_ID_SETTING = "user.id.node-id";
+    public static final int MAX_SHARDS = 1 << 5;
+
+    private static final long EPOCH_MILLIS = 1704067200000L;
+    private static final int SEQUENCE_BITS = 10;
+    private static final int NODE_BITS = 7;
+    private static final int SHARD_SHIFT = SEQUENCE_BITS + NODE_BITS;
+    private static final int TIMESTAMP_SHIFT = SHARD_SHIFT + 5;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private final LongSupplier clock;
+    private boolean distributed;
+    private long nodeId;
+    private long lastMillis = -1L;
+    private long sequence;
+
+    public UserIdGenerator() {
+        this.clock = System::currentTimeMillis;
+    }
+
+    /**
+     * Creates a distributed generator outside Hibernate, for tests.
+     *
+     * @param nodeId the node id
+     * @param clock the source of the current time in epoch milliseconds
+     */
+    UserIdGenerator(int nodeId, LongSupplier clock) {
+        this.clock = clock;
+        this.distributed = true;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        var settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+        this.distributed = ConfigurationHelper.getBoolean(DISTRIBUTED_SETTING, settings, false);
+        if (!distributed) {
+            return;
+        }
+        int configured = ConfigurationHelper.getInt(NODE_ID_SETTING, settings, -1);
+        if (configured < 0 || configured > MAX_NODE_ID) {
+            throw new MappingException(NODE_ID_SETTING + " must be set to a value between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = configured;
+    }
+
+    @Override
+    public boolean generatedOnExecution() {
+        return !distributed;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        Integer shard = ShardContext.current();
+        return nextId(shard != null ? shard : 0);
+    }
+
+    /**
+     * Extracts the shard a user id was generated on.
+     *
+     * @param id a generated user id
+     * @return the shard index
+     */
+    public static int shardOf(long id) {
+        return (int) ((id >>> SHARD_SHIFT) & (MAX_SHARDS - 1));
+    }
+
+    synchronized long nextId(int shard) {
+        // Never move backwards, even if the wall clock does
+        long millis = Math.max(clock.getAsLong(), lastMillis);
+        if (millis == lastMillis) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                millis = lastMillis + 1;
+            }
+        } else {
+            sequence = 0;
+        }
+        lastMillis = millis;
+        return ((millis - EPOCH_MILLIS) << TIMESTAMP_SHIFT)
+                | ((long) shard << SHARD_SHIFT)
+                | (nodeId << SEQUENCE_BITS)
+                | sequence;
+    }
+}
@@ -0,0 +1,73 @@
+package com.spring.userservice.shard;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32C;
+
+/**
+ * Maps users to shards.
+ * <p>
+ * A user lives on the shard selected by a hash of the normalized email, so
+ * an email lookup is always routed to exactly one shard. Every user id
+ * generated by {@link UserIdGenerator} embeds the shard it was created on,
+ * so lookups by id are routed without a directory. With sharding disabled
+ * there is a single shard and every method returns 0.
+ */
+@Component
+public class UserShardRouter {
+
+    private final boolean enabled;
+    private final int shardCount;
+
+    public UserShardRouter(
+            @Value("${user.sharding.enabled:false}") boolean enabled,
+            @Value("${user.sharding.urls:}") List<String> urls) {
+        this.enabled = enabled;
+        this.shardCount = enabled ? urls.size() : 1;
+        if (shardCount < 1 || shardCount > UserIdGenerator.MAX_SHARDS) {
+            throw new IllegalStateException(
+                    "user.sharding.urls must list between 1 and " + UserIdGenerator.MAX_SHARDS + " shards");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Returns the shard holding the user with the given email.
+     *
+     * @param email the user's email, in any case
+     * @return the shard index
+     */
+    public int shardForEmail(String email) {
+        if (shardCount == 1 || email == null) {
+            return 0;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(normalizeEmail(email).getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % shardCount);
+    }
+
+    /**
+     * Returns the shard holding the user with the given id.
+     *
+     * @param id a user id generated by {@link UserIdGenerator}
+     * @return the shard index
+     */
+    public int shardForId(long id) {
+        return shardCount == 1 ? 0 : UserIdGenerator.shardOf(id) % shardCount;
+    }
+
+    public static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,39 @@
+-- Schema applied to every user shard when user.sharding.enabled is true.
+-- Hibernate schema generation is disabled in that mode, so keep this in
+-- sync with the entity mappings.
+
+create table if not exists user (
+    id bigint not null,
+    first_name varchar(255),
+    last_name varchar(255),
+    email varchar(255),
+    password varchar(255),
+    role varchar(255),
+    primary key (id),
+    index idx_user_email (email)
+);
+
+create table if not exists idempotency_key (
+    idempotency_key varchar(128) not null,
+    request_hash varchar(64) not null,
+    user_email varchar(255),
+    created_at timestamp(6) not null,
+    reserved_at timestamp(6),
+    expires_at timestamp(6) not null,
+    primary key (idempotency_key)
+);
+
+create table if not exists outbox_event (
+    id bigint not null auto_increment,
+    aggregate_id bigint not null,
+    event_type varchar(64) not null,
+    payload varchar(4000) not null,
+    created_at timestamp(6) not null,
+    published_at timestamp(6),
+    attempts integer not null,
+    lease_owner varchar(64),
+    lease_expires_at timestamp(6),
+    primary key (id),
+    index idx_outbox_event_pending (published_at, id),
+    index idx_outbox_event_aggregate (aggregate_id, published_at)
+);
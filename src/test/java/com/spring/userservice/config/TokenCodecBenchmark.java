@@ -0,0 +1,86 @@
+package com.spring.userservice.config;
+
+import io.jsonwebtoken.io.Decoders;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of {@link JjwtTokenCodec} and {@link Hs256TokenCodec} on the
+ * token shape issued by this service: issuing a token, verifying a valid one
+ * and rejecting one with a forged signature.
+ * <p>
+ * Not run by the test suite. Run it after 'mvn test-compile' with
+ * <pre>
+ * mvn -q dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.spring.userservice.config.TokenCodecBenchmark
+ * </pre>
+ * The GC profiler is enabled, so 'gc.alloc.rate.norm' reports the bytes
+ * allocated per operation next to the timings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenCodecBenchmark {
+
+    @Param({"jjwt", "hs256"})
+    public String codec;
+
+    private TokenCodec tokenCodec;
+    private TokenClaims claims;
+    private String validToken;
+    private String forgedToken;
+
+    @Setup
+    public void setUp() {
+        byte[] keyBytes = Decoders.BASE64.decode("9a2f8c4e6b0d71f3e8b925a45747f894a3d6bc70fa8d5e21a15a6d8c3b9a0e7c");
+        tokenCodec = "hs256".equals(codec) ? new Hs256TokenCodec(keyBytes) : new JjwtTokenCodec(keyBytes);
+        long now = System.currentTimeMillis() / 1000L;
+        claims = new TokenClaims("member@example.com",
+                "management:read,management:create,ROLE_MEMBER", now, now + 86400L);
+        validToken = tokenCodec.encode(claims);
+        int signatureStart = validToken.lastIndexOf('.') + 1;
+        char replaced = validToken.charAt(signatureStart) == 'A' ? 'B' : 'A';
+        forgedToken = validToken.substring(0, signatureStart) + replaced + validToken.substring(signatureStart + 1);
+    }
+
+    @Benchmark
+    public String encode() {
+        return tokenCodec.encode(claims);
+    }
+
+    @Benchmark
+    public TokenVerification verifyValid() {
+        return tokenCodec.verify(validToken);
+    }
+
+    @Benchmark
+    public TokenVerification verifyForged() {
+        return tokenCodec.verify(forgedToken);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TokenCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,193 @@
+package com.spring.userservice.config;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cross-verifies {@link Hs256TokenCodec} against {@link JjwtTokenCodec}: tokens
+ * issued by either codec must be accepted by the other with identical claims,
+ * and both must reject the same bad tokens for the same reason.
+ */
+class TokenCodecCompatibilityTest {
+
+    private static final byte[] KEY_BYTES = Decoders.BASE64.decode("9a2f8c4e6b0d71f3e8b925a45747f894a3d6bc70fa8d5e21a15a6d8c3b9a0e7c");
+    private static final byte[] OTHER_KEY_BYTES = Decoders.BASE64.decode("0b1c2d3e4f5a6b7c8d9e0f1a2b3c4d5e6f7a8b9c0d1e2f3a4b5c6d7e8f9a0b1c");
+
+    private final JjwtTokenCodec jjwt = new JjwtTokenCodec(KEY_BYTES);
+    private final Hs256TokenCodec hs256 = new Hs256TokenCodec(KEY_BYTES);
+
+    static Stream<String> subjects() {
+        return Stream.of(
+                "member@example.com",
+                "quote\"and\\backslash@example.com",
+                "controls\b\f\n\r\t\u0000\u0001\u001f\u007f@example.com",
+                "slash/<script>&amp;=@example.com",
+                "café-üß@example.com",
+                "中文  ￿@example.com",
+                "emoji-😀-𝄞@example.com",
+                "",
+                " \t ");
+    }
+
+    @ParameterizedTest
+    @MethodSource("subjects")
+    void tokensAreByteIdenticalAndCrossVerify(String subject) {
+        TokenClaims claims = claims(subject, "ROLE_MEMBER,management:read");
+
+        String fromJjwt = jjwt.encode(claims);
+        String fromHs256 = hs256.encode(claims);
+
+        assertEquals(fromJjwt, fromHs256);
+        assertEquals(jjwt.verify(fromJjwt), hs256.verify(fromJjwt));
+        assertEquals(jjwt.verify(fromHs256), hs256.verify(fromHs256));
+    }
+
+    @Test
+    void missingClaimsAreOmittedByBothCodecs() {
+        TokenClaims claims = claims(null, null);
+
+        String fromHs256 = hs256.encode(claims);
+
+        assertEquals(jjwt.encode(claims), fromHs256);
+        assertEquals(claims, jjwt.verify(fromHs256).claims());
+        assertEquals(claims, hs256.verify(fromHs256).claims());
+    }
+
+    @Test
+    void extraClaimsAndTypHeaderAreAccepted() {
+        long now = now();
+        String token = Jwts.builder()
+                .setHeaderParam("typ", "JWT")
+                .setHeaderParam("kid", "k1")
+                .setId("3f2c")
+                .setSubject("member@example.com")
+                .claim("authorities", "ROLE_MEMBER")
+                .claim("nested", Map.of("list", List.of(1, "two", true, Map.of()), "escaped", "a\"}b"))
+                .claim("flag", false)
+                .claim("ratio", -1.5e3)
+                .claim("nothing", Map.of())
+                .setIssuedAt(new Date(now * 1000L))
+                .setExpiration(new Date((now + 60L) * 1000L))
+                .signWith(key(KEY_BYTES), SignatureAlgorithm.HS256)
+                .compact();
+
+        TokenVerification expected = jjwt.verify(token);
+
+        assertTrue(expected.isValid());
+        assertEquals(expected, hs256.verify(token));
+    }
+
+    @Test
+    void expiredTokensAreRejectedAsExpired() {
+        long now = now();
+        TokenClaims claims = new TokenClaims("member@example.com", "ROLE_MEMBER", now - 120L, now - 60L);
+
+        assertRejected(TokenRejection.EXPIRED, hs256.encode(claims));
+        assertRejected(TokenRejection.EXPIRED, jjwt.encode(claims));
+    }
+
+    @Test
+    void tokensNotValidYetAreRejectedAsNotYetValid() {
+        long now = now();
+        String token = Jwts.builder()
+                .setSubject("member@example.com")
+                .setIssuedAt(new Date(now * 1000L))
+                .setNotBefore(new Date((now + 600L) * 1000L))
+                .setExpiration(new Date((now + 3600L) * 1000L))
+                .signWith(key(KEY_BYTES), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertRejected(TokenRejection.NOT_YET_VALID, token);
+        assertEquals(TokenRejection.NOT_YET_VALID, new TokenPrecheck().check(token, System.currentTimeMillis()));
+    }
+
+    @Test
+    void tamperedPayloadIsRejectedAsInvalidSignature() {
+        String token = hs256.encode(claims("member@example.com", "ROLE_MEMBER"));
+        String[] parts = token.split("\\.");
+        String forgedPayload = Jwts.builder()
+                .setSubject("admin@example.com")
+                .claim("authorities", "ROLE_ADMIN")
+                .signWith(key(KEY_BYTES), SignatureAlgorithm.HS256)
+                .compact()
+                .split("\\.")[1];
+
+        assertRejected(TokenRejection.INVALID_SIGNATURE, parts[0] + "." + forgedPayload + "." + parts[2]);
+    }
+
+    @Test
+    void tamperedSignatureIsRejectedAsInvalidSignature() {
+        String token = hs256.encode(claims("member@example.com", "ROLE_MEMBER"));
+        int signatureStart = token.lastIndexOf('.') + 1;
+        char replaced = token.charAt(signatureStart) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, signatureStart) + replaced + token.substring(signatureStart + 1);
+
+        assertRejected(TokenRejection.INVALID_SIGNATURE, tampered);
+    }
+
+    @Test
+    void tokensSignedWithAnotherKeyAreRejectedAsInvalidSignature() {
+        String token = new Hs256TokenCodec(OTHER_KEY_BYTES).encode(claims("member@example.com", "ROLE_MEMBER"));
+
+        assertRejected(TokenRejection.INVALID_SIGNATURE, token);
+    }
+
+    @Test
+    void unsignedTokensAreRejectedAsMalformed() {
+        String token = Jwts.builder().setSubject("admin@example.com").compact();
+
+        assertRejected(TokenRejection.MALFORMED, token);
+        assertRejected(TokenRejection.MALFORMED, token + "c2ln");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "abc", "a.b", "a.b.c", ".."})
+    void garbageIsRejectedAsMalformed(String token) {
+        assertRejected(TokenRejection.MALFORMED, token);
+    }
+
+    @Test
+    void nonAsciiTokensAreRejected() {
+        String token = hs256.encode(claims("member@example.com", "ROLE_MEMBER"));
+        String withNonAscii = token.substring(0, token.indexOf('.') + 1) + "é" + token.substring(token.indexOf('.') + 1);
+
+        // hs256 refuses to decode it, jjwt decodes it leniently and fails the signature check
+        assertFalse(jjwt.verify(withNonAscii).isValid());
+        assertEquals(TokenRejection.MALFORMED, hs256.verify(withNonAscii).rejection());
+    }
+
+    private void assertRejected(TokenRejection expected, String token) {
+        assertEquals(expected, jjwt.verify(token).rejection(), "jjwt");
+        assertEquals(expected, hs256.verify(token).rejection(), "hs256");
+    }
+
+    private static TokenClaims claims(String subject, String authorities) {
+        long now = now();
+        return new TokenClaims(subject, authorities, now, now + 3600L);
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000L;
+    }
+
+    private static Key key(byte[] keyBytes) {
+        return Keys.hmacShaKeyFor(keyBytes);
+    }
+}
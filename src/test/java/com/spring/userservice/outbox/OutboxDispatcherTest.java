@@ -0,0 +1,180 @@
+package com.spring.userservice.outbox;
+
+import com.spring.userservice.entity.OutboxEvent;
+import com.spring.userservice.repository.OutboxEventRepository;
+import com.spring.userservice.shard.ShardContext;
+import com.spring.userservice.shard.UserShardRouter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Covers the claim, publish and release ordering of {@link OutboxDispatcher}
+ * and its lag and failure metrics against a mocked repository.
+ */
+class OutboxDispatcherTest {
+
+    private static final int BATCH_SIZE = 2;
+
+    private final OutboxEventRepository repository = mock(OutboxEventRepository.class);
+    private final OutboxSink sink = mock(OutboxSink.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void claimedBatchIsPublishedBeforeItIsMarkedPublished() {
+        OutboxDispatcher dispatcher = dispatcher(1);
+        List<OutboxEvent> events = List.of(event(1L, 0), event(2L, 0));
+        claimable(List.of(events));
+        when(repository.findClaimableIds(any(), any())).thenReturn(List.of(1L, 2L), List.of());
+
+        dispatcher.dispatch();
+
+        InOrder order = inOrder(repository, sink);
+        order.verify(repository).claim(eq(List.of(1L, 2L)), anyString(), any(), any());
+        order.verify(repository).findByLeaseOwnerAndPublishedAtIsNullAndLeaseExpiresAtAfterOrderByIdAsc(anyString(), any());
+        order.verify(sink).publish(anyList());
+        order.verify(repository).markPublished(eq(List.of(1L, 2L)), anyString(), any());
+        assertEquals(2, meterRegistry.counter("outbox.events.published").count());
+    }
+
+    @Test
+    void batchClaimedByAnotherNodeIsNotPublished() {
+        OutboxDispatcher dispatcher = dispatcher(1);
+        when(repository.findClaimableIds(any(), any())).thenReturn(List.of(1L));
+        when(repository.claim(anyCollection(), anyString(), any(), any())).thenReturn(0);
+
+        dispatcher.dispatch();
+
+        verify(sink, never()).publish(anyList());
+        verify(repository, never()).markPublished(anyCollection(), anyString(), any());
+    }
+
+    @Test
+    void failedBatchIsReleasedWithBackoffAndNotMarkedPublished() {
+        OutboxDispatcher dispatcher = dispatcher(1);
+        claimable(List.of(List.of(event(1L, 0), event(2L, 3))));
+        when(repository.findClaimableIds(any(), any())).thenReturn(List.of(1L, 2L), List.of());
+        doThrow(new IllegalStateException("sink down")).when(sink).publish(anyList());
+
+        Instant before = Instant.now();
+        dispatcher.dispatch();
+
+        ArgumentCaptor<Instant> retryAt = ArgumentCaptor.forClass(Instant.class);
+        verify(repository).markFailed(eq(1L), anyString(), retryAt.capture());
+        verify(repository).markFailed(eq(2L), anyString(), retryAt.capture());
+        assertFalse(retryAt.getAllValues().get(0).isBefore(before.plusSeconds(1)));
+        assertFalse(retryAt.getAllValues().get(1).isBefore(before.plusSeconds(8)));
+        verify(repository, never()).markPublished(anyCollection(), anyString(), any());
+        assertEquals(2, meterRegistry.counter("outbox.events.failed").count());
+    }
+
+    @Test
+    void fullBatchesAreClaimedUntilAShortOne() {
+        OutboxDispatcher dispatcher = dispatcher(1);
+        claimable(List.of(List.of(event(1L, 0), event(2L, 0)), List.of(event(3L, 0))));
+        when(repository.findClaimableIds(any(), any())).thenReturn(List.of(1L, 2L), List.of(3L));
+
+        dispatcher.dispatch();
+
+        verify(sink, times(2)).publish(anyList());
+        verify(repository, times(2)).findClaimableIds(any(), any());
+    }
+
+    @Test
+    void failingShardIsCountedAndStillReportsLag() {
+        OutboxDispatcher dispatcher = dispatcher(2);
+        Instant oldest = Instant.now().minus(Duration.ofMinutes(2));
+        when(repository.findClaimableIds(any(), any())).thenAnswer(invocation -> {
+            if (ShardContext.current() == 1) {
+                throw new DataAccessResourceFailureException("shard 1 down");
+            }
+            return List.of();
+        });
+        when(repository.findOldestPendingCreatedAt()).thenAnswer(invocation ->
+                ShardContext.current() == 1 ? oldest : null);
+
+        dispatcher.dispatch();
+
+        assertEquals(0, meterRegistry.counter("outbox.dispatch.failures", "shard", "0").count());
+        assertEquals(1, meterRegistry.counter("outbox.dispatch.failures", "shard", "1").count());
+        assertTrue(dispatcher.getLagMillis() >= Duration.ofMinutes(2).toMillis());
+    }
+
+    @Test
+    void lagKeepsLastKnownOldestEventWhenItCannotBeRead() {
+        OutboxDispatcher dispatcher = dispatcher(1);
+        Instant oldest = Instant.now().minus(Duration.ofMinutes(5));
+        when(repository.findClaimableIds(any(), any())).thenReturn(List.of());
+        when(repository.findOldestPendingCreatedAt()).thenReturn(oldest);
+        dispatcher.dispatch();
+
+        when(repository.findClaimableIds(any(), any())).thenThrow(new DataAccessResourceFailureException("down"));
+        when(repository.findOldestPendingCreatedAt()).thenThrow(new DataAccessResourceFailureException("down"));
+        dispatcher.dispatch();
+
+        assertTrue(dispatcher.getLagMillis() >= Duration.ofMinutes(5).toMillis());
+        assertTrue(meterRegistry.get("outbox.lag").gauge().value() >= Duration.ofMinutes(5).toSeconds());
+    }
+
+    @Test
+    void lagIsZeroWithoutPendingEvents() {
+        OutboxDispatcher dispatcher = dispatcher(2);
+        when(repository.findClaimableIds(any(), any())).thenReturn(List.of());
+
+        dispatcher.dispatch();
+
+        assertEquals(0, dispatcher.getLagMillis());
+    }
+
+    private OutboxDispatcher dispatcher(int shards) {
+        UserShardRouter router = shards == 1
+                ? new UserShardRouter(false, List.of())
+                : new UserShardRouter(true, Collections.nCopies(shards, "jdbc:test"));
+        return new OutboxDispatcher(repository, sink, router, meterRegistry,
+                BATCH_SIZE, 10, Duration.ofSeconds(30), Duration.ofDays(7));
+    }
+
+    private void claimable(List<List<OutboxEvent>> batches) {
+        when(repository.claim(anyCollection(), anyString(), any(), any())).thenReturn(1);
+        var stub = when(repository.findByLeaseOwnerAndPublishedAtIsNullAndLeaseExpiresAtAfterOrderByIdAsc(anyString(), any()));
+        for (List<OutboxEvent> batch : batches) {
+            stub = stub.thenReturn(batch);
+        }
+    }
+
+    private static OutboxEvent event(Long id, int attempts) {
+        return OutboxEvent.builder()
+                .id(id)
+                .aggregateId(100L + id)
+                .eventType("USER_REGISTERED")
+                .payload("{}")
+                .createdAt(Instant.now())
+                .attempts(attempts)
+                .build();
+    }
+}
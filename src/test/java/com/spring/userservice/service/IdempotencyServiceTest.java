@@ -0,0 +1,267 @@
+package com.spring.userservice.service;
+
+import com.spring.userservice.entity.IdempotencyRecord;
+import com.spring.userservice.entity.User;
+import com.spring.userservice.exception.IdempotencyConflictException;
+import com.spring.userservice.exception.ServiceUnavailableException;
+import com.spring.userservice.repository.IdempotencyRecordRepository;
+import com.spring.userservice.repository.UserRepository;
+import com.spring.userservice.resilience.DatabaseBulkheads;
+import com.spring.userservice.resilience.DatabaseHealth;
+import com.spring.userservice.shard.UserShardRouter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Covers the reserve, replay, take-over and release decisions of
+ * {@link IdempotencyService} against a mocked repository. The conditional
+ * updates themselves are single statements and are left to the database.
+ */
+class IdempotencyServiceTest {
+
+    private static final String KEY = "key-1";
+    private static final String EMAIL = "member@example.com";
+    private static final Duration RESERVATION_TIMEOUT = Duration.ofSeconds(30);
+
+    private final IdempotencyRecordRepository recordRepository = mock(IdempotencyRecordRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final User user = User.builder().id(1L).email(EMAIL).build();
+
+    private IdempotencyService service;
+    private String requestHash;
+
+    @BeforeEach
+    void setUp() {
+        service = service(new MockEnvironment(), "fingerprint-secret", "jwt-secret");
+        requestHash = service.fingerprint(EMAIL, "password");
+        when(recordRepository.complete(anyString(), any(), anyString())).thenReturn(1);
+    }
+
+    @Test
+    void freshKeyIsReservedAndCompletedInsideTheRegistration() {
+        IdempotencyService.Result result = service.execute(KEY, requestHash, EMAIL, onSaved -> {
+            onSaved.accept(user);
+            // Completed before the registration's transaction commits
+            verify(recordRepository).complete(eq(KEY), any(), eq(EMAIL));
+            return user;
+        });
+
+        assertSame(user, result.user());
+        assertFalse(result.replayed());
+        ArgumentCaptor<IdempotencyRecord> reserved = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(recordRepository).saveAndFlush(reserved.capture());
+        verify(recordRepository).complete(KEY, reserved.getValue().getReservedAt(), EMAIL);
+    }
+
+    @Test
+    void completedKeyIsReplayedWithoutRegistering() {
+        rejectReservation();
+        when(recordRepository.findById(KEY)).thenReturn(Optional.of(record(Instant.now(), EMAIL)));
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+
+        IdempotencyService.Result result = service.execute(KEY, requestHash, EMAIL, onSaved -> {
+            throw new AssertionError("must not register again");
+        });
+
+        assertSame(user, result.user());
+        assertTrue(result.replayed());
+    }
+
+    @Test
+    void completedKeyIsReplayedFromMemoryOnTheSameNode() {
+        service.execute(KEY, requestHash, EMAIL, onSaved -> {
+            onSaved.accept(user);
+            return user;
+        });
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+
+        IdempotencyService.Result result = service.execute(KEY, requestHash, EMAIL, onSaved -> {
+            throw new AssertionError("must not register again");
+        });
+
+        assertTrue(result.replayed());
+        verify(recordRepository, never()).findById(KEY);
+    }
+
+    @Test
+    void completedKeyUsedForAnotherRequestConflicts() {
+        rejectReservation();
+        when(recordRepository.findById(KEY)).thenReturn(Optional.of(record(Instant.now(), EMAIL)));
+
+        assertThrows(IdempotencyConflictException.class,
+                () -> service.execute(KEY, service.fingerprint(EMAIL, "other"), EMAIL, onSaved -> user));
+    }
+
+    @Test
+    void keyReservedByAnAttemptStillInFlightConflicts() {
+        rejectReservation();
+        when(recordRepository.findById(KEY)).thenReturn(Optional.of(record(Instant.now(), null)));
+
+        assertThrows(IdempotencyConflictException.class,
+                () -> service.execute(KEY, requestHash, EMAIL, onSaved -> user));
+        verify(recordRepository, never()).takeOver(anyString(), anyString(), any(), any(), any());
+    }
+
+    @Test
+    void lapsedReservationIsTakenOverByARetryOfTheSameRequest() {
+        rejectReservation();
+        when(recordRepository.findById(KEY)).thenReturn(Optional.of(record(lapsed(), null)));
+        when(recordRepository.takeOver(eq(KEY), eq(requestHash), any(), any(), any())).thenReturn(1);
+
+        IdempotencyService.Result result = service.execute(KEY, requestHash, EMAIL, onSaved -> {
+            onSaved.accept(user);
+            return user;
+        });
+
+        assertFalse(result.replayed());
+        verify(recordRepository).complete(eq(KEY), any(), eq(EMAIL));
+    }
+
+    @Test
+    void lapsedReservationTakenOverByAnotherRetryConflicts() {
+        rejectReservation();
+        when(recordRepository.findById(KEY)).thenReturn(Optional.of(record(lapsed(), null)));
+        when(recordRepository.takeOver(eq(KEY), eq(requestHash), any(), any(), any())).thenReturn(0);
+
+        assertThrows(IdempotencyConflictException.class, () -> service.execute(KEY, requestHash, EMAIL, onSaved -> {
+            throw new AssertionError("must not register");
+        }));
+    }
+
+    @Test
+    void lapsedReservationOfAnotherRequestIsNotTakenOver() {
+        rejectReservation();
+        when(recordRepository.findById(KEY)).thenReturn(Optional.of(record(lapsed(), null)));
+
+        assertThrows(IdempotencyConflictException.class,
+                () -> service.execute(KEY, service.fingerprint(EMAIL, "other"), EMAIL, onSaved -> user));
+        verify(recordRepository, never()).takeOver(anyString(), anyString(), any(), any(), any());
+    }
+
+    @Test
+    void attemptWhoseReservationWasTakenOverFailsInsideTheRegistration() {
+        when(recordRepository.complete(anyString(), any(), anyString())).thenReturn(0);
+        AtomicInteger savedAfterCompletion = new AtomicInteger();
+
+        assertThrows(IdempotencyConflictException.class, () -> service.execute(KEY, requestHash, EMAIL, onSaved -> {
+            onSaved.accept(user);
+            savedAfterCompletion.incrementAndGet();
+            return user;
+        }));
+        assertEquals(0, savedAfterCompletion.get());
+        verify(recordRepository).release(eq(KEY), any());
+    }
+
+    @Test
+    void failedRegistrationReleasesItsOwnReservation() {
+        IllegalStateException failure = new IllegalStateException("boom");
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> service.execute(KEY, requestHash, EMAIL, onSaved -> {
+                    throw failure;
+                }));
+
+        assertSame(failure, thrown);
+        ArgumentCaptor<IdempotencyRecord> reserved = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(recordRepository).saveAndFlush(reserved.capture());
+        verify(recordRepository).release(KEY, reserved.getValue().getReservedAt());
+    }
+
+    @Test
+    void releaseFailureDoesNotMaskTheOriginalFailure() {
+        ServiceUnavailableException failure = new ServiceUnavailableException("database down");
+        when(recordRepository.release(anyString(), any())).thenThrow(new DataAccessResourceFailureException("down"));
+
+        ServiceUnavailableException thrown = assertThrows(ServiceUnavailableException.class,
+                () -> service.execute(KEY, requestHash, EMAIL, onSaved -> {
+                    throw failure;
+                }));
+
+        assertSame(failure, thrown);
+        assertEquals(1, thrown.getSuppressed().length);
+    }
+
+    @Test
+    void databaseFailureWhileReservingIsServiceUnavailable() {
+        when(recordRepository.saveAndFlush(any())).thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertThrows(ServiceUnavailableException.class, () -> service.execute(KEY, requestHash, EMAIL, onSaved -> {
+            throw new AssertionError("must not register");
+        }));
+        verify(recordRepository, never()).release(anyString(), any());
+    }
+
+    @Test
+    void shedRegistrationReservesNothing() {
+        IdempotencyService saturated = service(
+                new MockEnvironment().withProperty("bulkhead.registration.max-concurrent", "0"), "fingerprint-secret", "jwt-secret");
+
+        assertThrows(ServiceUnavailableException.class, () -> saturated.execute(KEY, requestHash, EMAIL, onSaved -> {
+            throw new AssertionError("must not register");
+        }));
+        verify(recordRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void fingerprintKeyIsDerivedRatherThanTheJwtSecretItself() {
+        IdempotencyService derived = service(new MockEnvironment(), "", "jwt-secret");
+        IdempotencyService keyedWithJwtSecret = service(new MockEnvironment(), "jwt-secret", "other");
+
+        assertNotEquals(keyedWithJwtSecret.fingerprint(EMAIL), derived.fingerprint(EMAIL));
+    }
+
+    private IdempotencyService service(MockEnvironment environment, String fingerprintSecret, String jwtSecret) {
+        UserShardRouter userShardRouter = new UserShardRouter(false, List.of());
+        DatabaseBulkheads databaseBulkheads = new DatabaseBulkheads(environment, mock(PlatformTransactionManager.class),
+                userShardRouter, new DatabaseHealth(3, Duration.ofSeconds(5)), new SimpleMeterRegistry());
+        return new IdempotencyService(recordRepository, userRepository, userShardRouter, databaseBulkheads,
+                Duration.ofHours(24), RESERVATION_TIMEOUT, 100, fingerprintSecret, jwtSecret);
+    }
+
+    private void rejectReservation() {
+        when(recordRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+    }
+
+    private static Instant lapsed() {
+        return Instant.now().minus(RESERVATION_TIMEOUT).minusSeconds(1);
+    }
+
+    private IdempotencyRecord record(Instant reservedAt, String userEmail) {
+        return IdempotencyRecord.builder()
+                .idempotencyKey(KEY)
+                .requestHash(requestHash)
+                .userEmail(userEmail)
+                .createdAt(reservedAt)
+                .reservedAt(reservedAt)
+                .expiresAt(reservedAt.plus(Duration.ofHours(24)))
+                .build();
+    }
+}
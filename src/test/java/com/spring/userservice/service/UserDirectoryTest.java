@@ -0,0 +1,93 @@
+package com.spring.userservice.service;
+
+import com.spring.userservice.entity.User;
+import com.spring.userservice.repository.UserRepository;
+import com.spring.userservice.shard.ShardContext;
+import com.spring.userservice.shard.UserShardRouter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Covers the k-way merge of {@link UserDirectory} over per-shard pages
+ * served by a mocked repository.
+ */
+class UserDirectoryTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    @Test
+    void shardsAreMergedInIdOrder() {
+        UserDirectory directory = directory(Map.of(
+                0, List.of(2L, 5L, 9L),
+                1, List.of(1L, 3L, 4L, 10L),
+                2, List.of(6L)));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 9L, 10L), ids(directory));
+    }
+
+    @Test
+    void emptyShardsAreSkipped() {
+        UserDirectory directory = directory(Map.of(0, List.of(), 1, List.of(7L), 2, List.of()));
+
+        assertEquals(List.of(7L), ids(directory));
+    }
+
+    @Test
+    void largeShardsAreReadInKeysetPages() {
+        List<Long> even = LongStream.rangeClosed(1, 600).map(i -> i * 2).boxed().toList();
+        List<Long> odd = LongStream.rangeClosed(0, 599).map(i -> i * 2 + 1).boxed().toList();
+        UserDirectory directory = directory(Map.of(0, even, 1, odd));
+
+        List<Long> ids = ids(directory);
+
+        assertEquals(LongStream.rangeClosed(1, 1200).boxed().toList(), ids);
+        verify(userRepository, times(2)).findByIdGreaterThanOrderByIdAsc(Long.MIN_VALUE, page());
+        verify(userRepository).findByIdGreaterThanOrderByIdAsc(1000L, page());
+        verify(userRepository).findByIdGreaterThanOrderByIdAsc(999L, page());
+    }
+
+    @Test
+    void streamIsPopulatedLazily() {
+        UserDirectory directory = directory(Map.of(0, List.of(1L, 3L), 1, List.of(2L)));
+
+        assertEquals(List.of(1L), directory.streamAll().limit(1).map(User::getId).toList());
+        verify(userRepository, times(2)).findByIdGreaterThanOrderByIdAsc(anyLong(), any());
+    }
+
+    private UserDirectory directory(Map<Integer, List<Long>> idsByShard) {
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            Pageable pageable = invocation.getArgument(1);
+            return idsByShard.get(ShardContext.current()).stream()
+                    .filter(id -> id > after)
+                    .limit(pageable.getPageSize())
+                    .map(id -> User.builder().id(id).build())
+                    .toList();
+        });
+        return new UserDirectory(userRepository,
+                new UserShardRouter(true, Collections.nCopies(idsByShard.size(), "jdbc:test")));
+    }
+
+    private static List<Long> ids(UserDirectory directory) {
+        return directory.streamAll().map(User::getId).toList();
+    }
+
+    private static Pageable page() {
+        return PageRequest.of(0, 500);
+    }
+}
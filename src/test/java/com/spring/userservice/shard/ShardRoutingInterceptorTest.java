@@ -0,0 +1,96 @@
+package com.spring.userservice.shard;
+
+import com.spring.userservice.entity.User;
+import com.spring.userservice.repository.UserRepository;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Covers how {@link ShardRoutingInterceptor} picks the shard of a
+ * UserRepository call and rejects calls no single shard can answer.
+ */
+class ShardRoutingInterceptorTest {
+
+    private static final String EMAIL = "member@example.com";
+
+    private final UserShardRouter router = new UserShardRouter(true, Collections.nCopies(4, "jdbc:test"));
+    private final ShardRoutingInterceptor interceptor = new ShardRoutingInterceptor(router);
+
+    @Test
+    void emailLookupIsRoutedByEmail() throws Throwable {
+        assertEquals(router.shardForEmail(EMAIL), shardOf(invocation("findByEmail", new Class<?>[] {String.class}, EMAIL)));
+    }
+
+    @Test
+    void userIsRoutedByItsEmail() throws Throwable {
+        User user = User.builder().email(EMAIL).build();
+
+        assertEquals(router.shardForEmail(EMAIL), shardOf(invocation("save", new Class<?>[] {Object.class}, user)));
+    }
+
+    @Test
+    void idLookupIsRoutedByTheShardInTheId() throws Throwable {
+        long id = new UserIdGenerator(0, System::currentTimeMillis).nextId(3);
+
+        assertEquals(3, shardOf(invocation("findById", new Class<?>[] {Object.class}, id)));
+    }
+
+    @Test
+    void callOnASelectedShardStaysThere() throws Throwable {
+        MethodInvocation invocation = invocation("findByIdGreaterThanOrderByIdAsc",
+                new Class<?>[] {Long.class, Pageable.class}, 0L, Pageable.unpaged());
+
+        try (ShardContext.Scope ignored = ShardContext.enter(2)) {
+            assertEquals(2, shardOf(invocation));
+        }
+    }
+
+    @Test
+    void callSpanningShardsIsRejected() throws Throwable {
+        MethodInvocation invocation = invocation("findAll", new Class<?>[0]);
+
+        assertThrows(UnsupportedOperationException.class, () -> interceptor.invoke(invocation));
+        verify(invocation, never()).proceed();
+    }
+
+    @Test
+    void stringArgumentOfANonEmailMethodIsRejected() throws Throwable {
+        MethodInvocation invocation = invocation("deleteById", new Class<?>[] {Object.class}, EMAIL);
+
+        assertThrows(UnsupportedOperationException.class, () -> interceptor.invoke(invocation));
+    }
+
+    private Integer shardOf(MethodInvocation invocation) throws Throwable {
+        AtomicReference<Integer> routed = new AtomicReference<>();
+        when(invocation.proceed()).thenAnswer(ignored -> {
+            routed.set(ShardContext.current());
+            return null;
+        });
+        Integer outside = ShardContext.current();
+
+        interceptor.invoke(invocation);
+
+        assertEquals(outside, ShardContext.current());
+        return routed.get();
+    }
+
+    private static MethodInvocation invocation(String name, Class<?>[] parameterTypes, Object... args)
+            throws NoSuchMethodException {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.getMethod()).thenReturn(UserRepository.class.getMethod(name, parameterTypes));
+        when(invocation.getArguments()).thenReturn(args);
+        return invocation;
+    }
+}
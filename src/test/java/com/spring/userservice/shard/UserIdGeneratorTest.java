@@ -0,0 +1,67 @@
+package com.spring.userservice.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Covers the bit layout of {@link UserIdGenerator}'s distributed ids and
+ * their ordering across sequence rollover and a clock moving backwards.
+ */
+class UserIdGeneratorTest {
+
+    private static final long EPOCH_MILLIS = 1704067200000L;
+    private static final int NODE_ID = 7;
+
+    private final AtomicLong clock = new AtomicLong(EPOCH_MILLIS + 5);
+    private final UserIdGenerator generator = new UserIdGenerator(NODE_ID, clock::get);
+
+    @Test
+    void idPacksTimestampShardNodeAndSequence() {
+        long first = generator.nextId(3);
+        long second = generator.nextId(3);
+
+        assertEquals((5L << 22) | (3L << 17) | ((long) NODE_ID << 10), first);
+        assertEquals(first + 1, second);
+    }
+
+    @Test
+    void shardIsRecoveredFromEveryShardsIds() {
+        for (int shard = 0; shard < UserIdGenerator.MAX_SHARDS; shard++) {
+            assertEquals(shard, UserIdGenerator.shardOf(generator.nextId(shard)));
+        }
+    }
+
+    @Test
+    void exhaustedSequenceMovesToTheNextMillisecond() {
+        long previous = -1L;
+        for (int i = 0; i < 1024; i++) {
+            long id = generator.nextId(0);
+            assertTrue(id > previous);
+            previous = id;
+        }
+        assertEquals(5L, previous >>> 22);
+        assertEquals(1023L, previous & 1023L);
+
+        long rolledOver = generator.nextId(0);
+
+        assertEquals(6L, rolledOver >>> 22);
+        assertEquals(0L, rolledOver & 1023L);
+        assertEquals(1L, generator.nextId(0) & 1023L);
+    }
+
+    @Test
+    void clockMovingBackwardsNeverReusesIds() {
+        long before = generator.nextId(1);
+        clock.set(EPOCH_MILLIS + 2);
+
+        long after = generator.nextId(1);
+
+        assertTrue(after > before);
+        assertEquals(5L, after >>> 22);
+        assertEquals(1, UserIdGenerator.shardOf(after));
+    }
+}